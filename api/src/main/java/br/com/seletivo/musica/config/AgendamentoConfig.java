@@ -0,0 +1,10 @@
+package br.com.seletivo.musica.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Habilita as tarefas @Scheduled (ex: backfill de miniaturas das capas)
+@Configuration
+@EnableScheduling
+public class AgendamentoConfig {
+}
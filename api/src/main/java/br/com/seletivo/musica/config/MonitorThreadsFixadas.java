@@ -0,0 +1,69 @@
+package br.com.seletivo.musica.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Acompanha, pelo JFR, as threads virtuais que ficam presas à thread da plataforma (pinning): bloqueios dentro de
+ * synchronized ou de código nativo, que seguram a thread da plataforma enquanto esperam. Cada ocorrência acima de
+ * LIMITE entra no timer jvm.threads.virtual.pinned e é registrada com o trecho do código da aplicação que a causou.
+ * Só existe no modo de threads virtuais. Para investigar sem o monitor: -Djdk.tracePinnedThreads=short.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class MonitorThreadsFixadas {
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+    private static final Duration LIMITE = Duration.ofMillis(20);
+    private static final String PACOTE_APLICACAO = "br.com.seletivo.musica.";
+
+    private final RecordingStream stream;
+    private final Timer fixadas;
+
+    public MonitorThreadsFixadas(MeterRegistry meterRegistry) {
+        this.fixadas = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Tempo em que threads virtuais ficaram presas à thread da plataforma")
+                .register(meterRegistry);
+        this.stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(LIMITE).withStackTrace();
+        stream.onEvent(EVENTO, this::registrar);
+        stream.startAsync();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stream.close();
+    }
+
+    private void registrar(RecordedEvent evento) {
+        fixadas.record(evento.getDuration());
+        System.err.println("Thread virtual fixada por " + evento.getDuration().toMillis() + " ms em " + origem(evento));
+    }
+
+    // Primeiro trecho da aplicação na pilha; sem ele, o topo da pilha
+    private static String origem(RecordedEvent evento) {
+        if (evento.getStackTrace() == null || evento.getStackTrace().getFrames().isEmpty()) {
+            return "(sem pilha)";
+        }
+        RecordedFrame topo = evento.getStackTrace().getFrames().get(0);
+        for (RecordedFrame frame : evento.getStackTrace().getFrames()) {
+            if (frame.getMethod().getType().getName().startsWith(PACOTE_APLICACAO)) {
+                return descrever(frame) + " (topo: " + descrever(topo) + ")";
+            }
+        }
+        return descrever(topo);
+    }
+
+    private static String descrever(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,67 @@
+package br.com.seletivo.musica.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "replica")
+public class ReplicaProperties {
+
+    // Desligado: tudo vai para spring.datasource, como antes
+    private boolean enabled = false;
+    // Conexão com a réplica de leitura; usuário e senha vazios usam os de spring.datasource
+    private String url;
+    private String username;
+    private String password;
+    private int maximumPoolSize = 10;
+    // Depois de uma escrita, as leituras do mesmo usuário ficam no primário por esse tempo (atraso da replicação)
+    private long lagGuardMs = 2000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public long getLagGuardMs() {
+        return lagGuardMs;
+    }
+
+    public void setLagGuardMs(long lagGuardMs) {
+        this.lagGuardMs = lagGuardMs;
+    }
+}
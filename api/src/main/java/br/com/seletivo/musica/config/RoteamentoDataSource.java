@@ -0,0 +1,169 @@
+package br.com.seletivo.musica.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Envia as transações somente leitura para a réplica e as demais (e o que roda fora de transação) para o primário.
+ * Deve ficar atrás de um LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexão antes de marcar a
+ * transação como somente leitura, e o proxy adia a escolha até o primeiro comando.
+ * Guarda de atraso: quando uma transação de escrita de um usuário é commitada, as leituras dele vão ao primário
+ * durante a janela configurada, para que ele veja o que acabou de gravar mesmo com a réplica atrasada. Só conta a
+ * transação que de fato alterou linhas no primário: um POST rejeitado pela validação ou uma transação de escrita que
+ * só leu não desviam as leituras seguintes.
+ * A guarda vale por instância: com várias réplicas da aplicação atrás do balanceador, a leitura que cair em outra
+ * instância logo após a escrita pode ir à réplica do banco e não ver o que acabou de ser gravado. Para isso o
+ * balanceador precisa de afinidade por usuário (sticky session), ou a janela fica sem efeito entre instâncias.
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    enum Destino {
+        PRIMARIO,
+        REPLICA
+    }
+
+    // Usuários com escrita commitada dentro da janela
+    private final Cache<String, Boolean> escritasRecentes;
+    private final Counter leiturasNaReplica;
+    private final Counter leiturasDesviadas;
+    private final Counter conexoesNoPrimario;
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica, Duration janela, MeterRegistry meterRegistry) {
+        this(primario, replica, janela, meterRegistry, Ticker.systemTicker());
+    }
+
+    RoteamentoDataSource(DataSource primario, DataSource replica, Duration janela, MeterRegistry meterRegistry,
+                         Ticker ticker) {
+        setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primario);
+        this.escritasRecentes = Caffeine.newBuilder()
+                .expireAfterWrite(janela)
+                .maximumSize(100_000)
+                .ticker(ticker)
+                .build();
+        this.leiturasNaReplica = meterRegistry.counter("datasource.roteamento", "destino", "replica");
+        this.leiturasDesviadas = meterRegistry.counter("datasource.roteamento", "destino", "primario-apos-escrita");
+        this.conexoesNoPrimario = meterRegistry.counter("datasource.roteamento", "destino", "primario");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            conexoesNoPrimario.increment();
+            return Destino.PRIMARIO;
+        }
+        String usuario = usuarioAtual();
+        if (usuario != null && escritasRecentes.getIfPresent(usuario) != null) {
+            leiturasDesviadas.increment();
+            return Destino.PRIMARIO;
+        }
+        leiturasNaReplica.increment();
+        return Destino.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return observarEscritas(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return observarEscritas(super.getConnection(username, password));
+    }
+
+    // Só transações de escrita contam: comandos fora de transação (ex: rate limit) não são dados do usuário.
+    // A janela começa no commit, não no início da transação, e só se algum comando da transação alterou linhas.
+    private Connection observarEscritas(Connection conexao) {
+        String usuario = usuarioAtual();
+        if (usuario == null || TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return conexao;
+        }
+        EscritaDaTransacao escrita = new EscritaDaTransacao(usuario);
+        TransactionSynchronizationManager.registerSynchronization(escrita);
+        return proxy(Connection.class, conexao, (alvo, metodo, argumentos) -> {
+            Object resultado = invocar(alvo, metodo, argumentos);
+            return resultado instanceof Statement comando && Statement.class.isAssignableFrom(metodo.getReturnType())
+                    ? proxy(metodo.getReturnType(), comando, (s, m, a) -> escrita.observar(m, invocar(s, m, a)))
+                    : resultado;
+        });
+    }
+
+    private class EscritaDaTransacao implements TransactionSynchronization {
+
+        private final String usuario;
+        private boolean alterouLinhas;
+
+        EscritaDaTransacao(String usuario) {
+            this.usuario = usuario;
+        }
+
+        // executeUpdate/executeBatch com linhas afetadas; execute() sem ResultSet conta como escrita por precaução
+        Object observar(Method metodo, Object resultado) {
+            alterouLinhas |= switch (metodo.getName()) {
+                case "executeUpdate", "executeLargeUpdate" -> ((Number) resultado).longValue() > 0;
+                case "executeBatch" -> Arrays.stream((int[]) resultado).anyMatch(linhas -> linhas != 0);
+                case "executeLargeBatch" -> Arrays.stream((long[]) resultado).anyMatch(linhas -> linhas != 0);
+                case "execute" -> Boolean.FALSE.equals(resultado);
+                default -> false;
+            };
+            return resultado;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED && alterouLinhas) {
+                escritasRecentes.put(usuario, Boolean.TRUE);
+            }
+        }
+    }
+
+    private interface Chamada<T> {
+        Object invocar(T alvo, Method metodo, Object[] argumentos) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> tipo, T alvo, Chamada<T> chamada) {
+        InvocationHandler handler = (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+            // Igualdade pela instância do proxy, como o DataSourceUtils espera ao comparar conexões
+            case "equals" -> proxy == argumentos[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> chamada.invocar(alvo, metodo, argumentos);
+        };
+        return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[]{tipo}, handler);
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static String usuarioAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        return autenticacao != null && autenticacao.isAuthenticated() ? autenticacao.getName() : null;
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.seletivo.musica.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Com replica.enabled, substitui o DataSource do Spring Boot por dois pools (primário e réplica) atrás do
+ * RoteamentoDataSource. JPA, JdbcTemplate e Flyway usam o DataSource @Primary; o Flyway roda fora de transação,
+ * então migra sempre o primário. Com a mesma URL nos dois pools, um único PostgreSQL faz os dois papéis.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class RoteamentoDataSourceConfig {
+
+    // Mesmas propriedades spring.datasource.* e spring.datasource.hikari.* do DataSource padrão
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource dataSourceReplica(ReplicaProperties replica, DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replica.getUrl())
+                .username(vazioComoPadrao(replica.getUsername(), properties.determineUsername()))
+                .password(vazioComoPadrao(replica.getPassword(), properties.determinePassword()))
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("dataSourcePrimario") DataSource primario,
+                                 @Qualifier("dataSourceReplica") DataSource replica,
+                                 ReplicaProperties properties,
+                                 MeterRegistry meterRegistry) {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, replica,
+                Duration.ofMillis(properties.getLagGuardMs()), meterRegistry);
+        roteamento.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+
+    private static String vazioComoPadrao(String valor, String padrao) {
+        return valor == null || valor.isBlank() ? padrao : valor;
+    }
+}
@@ -0,0 +1,52 @@
+package br.com.seletivo.musica.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sessões WebSocket abertas, pelo id (o mesmo simpSessionId das mensagens STOMP), para que uma sessão
+ * possa ser fechada de fora do handler, como quando um frame dela é descartado (WebSocketMetricas).
+ */
+@Component
+public class SessoesWebSocket implements WebSocketHandlerDecoratorFactory {
+
+    private final Map<String, WebSocketSession> sessoes = new ConcurrentHashMap<>();
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessoes.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessoes.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    // SESSION_NOT_RELIABLE, o mesmo status dos limites de envio: o cliente reconecta e assina de novo
+    void fechar(String id) {
+        WebSocketSession sessao = sessoes.remove(id);
+        if (sessao == null) {
+            return;
+        }
+        try {
+            sessao.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
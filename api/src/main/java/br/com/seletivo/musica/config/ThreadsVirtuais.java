@@ -0,0 +1,27 @@
+package br.com.seletivo.musica.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Threads dos pools internos. Com spring.threads.virtual.enabled=true em Java 21+ (a mesma condição em que o
+ * Spring Boot passa o Tomcat, o @Async e o @Scheduled para threads virtuais), os pools que passam quase todo o
+ * tempo esperando a rede (MinIO, API de regionais) também usam threads virtuais. O tamanho de cada pool continua
+ * limitando quantas tarefas rodam ao mesmo tempo.
+ */
+public final class ThreadsVirtuais {
+
+    private ThreadsVirtuais() {
+    }
+
+    public static ThreadFactory fabrica(Environment environment, String prefixo) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return new VirtualThreadTaskExecutor(prefixo).getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory(prefixo);
+    }
+}
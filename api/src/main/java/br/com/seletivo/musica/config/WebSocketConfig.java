@@ -1,15 +1,37 @@
 package br.com.seletivo.musica.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final WebSocketProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final SessoesWebSocket sessoes;
+
+    public WebSocketConfig(WebSocketProperties properties, MeterRegistry meterRegistry, SessoesWebSocket sessoes) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.sessoes = sessoes;
+    }
+
+    // Broker simples, em memória: cada réplica só entrega às próprias sessões. As notificações do outbox chegam às
+    // outras réplicas com outbox.fan-out=postgres (PostgresDistribuicaoNovosAlbuns).
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
@@ -22,4 +44,58 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*") // Permitir acesso do frontend
                 .withSockJS();
     }
+
+    // Por padrão os canais têm fila sem limite: um pico de notificações ou clientes lentos acumulariam memória.
+    // Com a fila cheia o frame é descartado em vez de enfileirado, e a sessão dele é fechada (WebSocketMetricas).
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(properties.getInboundThreads())
+                .maxPoolSize(properties.getInboundThreads())
+                .queueCapacity(properties.getChannelQueueCapacity());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(properties.getOutboundThreads())
+                .maxPoolSize(properties.getOutboundThreads())
+                .queueCapacity(properties.getChannelQueueCapacity());
+        registration.interceptors(new TempoEnvio(meterRegistry.timer("websocket.envio")));
+    }
+
+    // Cliente lento: em vez de guardar os frames dele sem limite, a sessão é fechada quando um envio demora mais que
+    // send-time-limit-ms ou o que está pendente passa de send-buffer-size-kb. O cliente reconecta sozinho.
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(properties.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(properties.getSendBufferSizeKb() * 1024)
+                .addDecoratorFactory(sessoes);
+    }
+
+    // Tempo de escrita de cada frame na sessão do cliente, medido na thread do canal de saída
+    private static final class TempoEnvio implements ExecutorChannelInterceptor {
+
+        private final Timer timer;
+        private final ThreadLocal<Long> inicio = new ThreadLocal<>();
+
+        TempoEnvio(Timer timer) {
+            this.timer = timer;
+        }
+
+        @Override
+        public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+            inicio.set(System.nanoTime());
+            return message;
+        }
+
+        @Override
+        public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+            Long comeco = inicio.get();
+            if (comeco != null) {
+                inicio.remove();
+                timer.record(System.nanoTime() - comeco, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
 }
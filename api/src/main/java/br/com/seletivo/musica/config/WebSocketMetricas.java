@@ -0,0 +1,81 @@
+package br.com.seletivo.musica.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionHandler;
+
+/**
+ * Métricas do broker STOMP: mensagens na fila dos canais de entrada e de saída (websocket.canal.fila), frames
+ * descartados com a fila cheia (websocket.frames.descartados) e sessões fechadas por não acompanharem o ritmo
+ * de envio ou por terem um frame descartado (websocket.sessoes.descartadas).
+ */
+@Component
+public class WebSocketMetricas {
+
+    private final Counter sessoesDescartadas;
+    private final SessoesWebSocket sessoes;
+
+    public WebSocketMetricas(@Qualifier("clientInboundChannelExecutor") TaskExecutor entrada,
+                             @Qualifier("clientOutboundChannelExecutor") TaskExecutor saida,
+                             SessoesWebSocket sessoes,
+                             MeterRegistry meterRegistry) {
+        this.sessoes = sessoes;
+        registrarFila(meterRegistry, "entrada", entrada);
+        registrarFila(meterRegistry, "saida", saida);
+        this.sessoesDescartadas = meterRegistry.counter("websocket.sessoes.descartadas");
+    }
+
+    // Os beans são declarados como TaskExecutor; com o taskExecutor() de WebSocketConfig são ThreadPoolTaskExecutor
+    private void registrarFila(MeterRegistry meterRegistry, String canal, TaskExecutor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            meterRegistry.gauge("websocket.canal.fila", List.of(Tag.of("canal", canal)), pool, ThreadPoolTaskExecutor::getQueueSize);
+            pool.getThreadPoolExecutor().setRejectedExecutionHandler(
+                    descartar(meterRegistry.counter("websocket.frames.descartados", "canal", canal)));
+        }
+    }
+
+    // No lugar do AbortPolicy, que lançaria a exceção na thread do broker (ou do container, na entrada) e só
+    // deixaria uma linha no log. Uma sessão que perdeu um frame (um SUBSCRIBE, ou uma notificação) ficaria
+    // inconsistente sem saber; fechada, o cliente reconecta e assina de novo.
+    private RejectedExecutionHandler descartar(Counter framesDescartados) {
+        return (tarefa, executor) -> {
+            if (!(tarefa instanceof MessageHandlingRunnable envio)) {
+                framesDescartados.increment();
+                return;
+            }
+            MessageHeaders cabecalhos = envio.getMessage().getHeaders();
+            // O DISCONNECT de uma sessão fechada roda mesmo assim, nesta thread: sem ele o broker manteria as assinaturas
+            if (SimpMessageHeaderAccessor.getMessageType(cabecalhos) == SimpMessageType.DISCONNECT) {
+                tarefa.run();
+                return;
+            }
+            framesDescartados.increment();
+            String sessao = SimpMessageHeaderAccessor.getSessionId(cabecalhos);
+            if (sessao != null) {
+                sessoes.fechar(sessao);
+            }
+        };
+    }
+
+    // Fechada pelo limite de tempo ou de buffer de envio (WebSocketConfig.configureWebSocketTransport)
+    @EventListener
+    public void aoDesconectar(SessionDisconnectEvent evento) {
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(evento.getCloseStatus())) {
+            sessoesDescartadas.increment();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.seletivo.musica.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "websocket")
+public class WebSocketProperties {
+
+    // Threads e fila dos canais de entrada (mensagens dos clientes) e de saída (frames para os clientes).
+    // Com a fila cheia a mensagem é rejeitada em vez de acumular memória.
+    private int inboundThreads = 4;
+    private int outboundThreads = 8;
+    private int channelQueueCapacity = 1000;
+    // Cliente lento: se um envio passar desse tempo ou o buffer da sessão passar desse tamanho, a sessão é fechada
+    private int sendTimeLimitMs = 5000;
+    private int sendBufferSizeKb = 256;
+
+    public int getInboundThreads() {
+        return inboundThreads;
+    }
+
+    public void setInboundThreads(int inboundThreads) {
+        this.inboundThreads = inboundThreads;
+    }
+
+    public int getOutboundThreads() {
+        return outboundThreads;
+    }
+
+    public void setOutboundThreads(int outboundThreads) {
+        this.outboundThreads = outboundThreads;
+    }
+
+    public int getChannelQueueCapacity() {
+        return channelQueueCapacity;
+    }
+
+    public void setChannelQueueCapacity(int channelQueueCapacity) {
+        this.channelQueueCapacity = channelQueueCapacity;
+    }
+
+    public int getSendTimeLimitMs() {
+        return sendTimeLimitMs;
+    }
+
+    public void setSendTimeLimitMs(int sendTimeLimitMs) {
+        this.sendTimeLimitMs = sendTimeLimitMs;
+    }
+
+    public int getSendBufferSizeKb() {
+        return sendBufferSizeKb;
+    }
+
+    public void setSendBufferSizeKb(int sendBufferSizeKb) {
+        this.sendBufferSizeKb = sendBufferSizeKb;
+    }
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -36,6 +37,11 @@ public class Album {
     @Column(name = "data_criacao", nullable = false)
     private Instant dataCriacao = Instant.now();
 
+    // Incrementada a cada alteração, inclusive envio de capas e geração de miniaturas; base do ETag e do If-Match
+    @Version
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
     @OneToMany(mappedBy = "album")
     private List<AlbumCapa> capas = new ArrayList<>();
 
@@ -79,6 +85,14 @@ public class Album {
         this.dataCriacao = dataCriacao;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     public List<AlbumCapa> getCapas() {
         return capas;
     }
@@ -36,6 +36,22 @@ public class AlbumCapa {
     @Column(name = "data_upload", nullable = false)
     private Instant dataUpload = Instant.now();
 
+    // SHA-256 do conteúdo; nulo para capas enviadas antes da deduplicação
+    @Column(name = "hash_sha256", length = 64)
+    private String hashSha256;
+
+    // Larguras das miniaturas geradas, separadas por vírgula. Nula enquanto a capa não foi processada.
+    @Column(name = "miniaturas", length = 100)
+    private String miniaturas;
+
+    // Falhas não transitórias ao gerar as miniaturas; no limite configurado o backfill deixa de tentar
+    @Column(name = "tentativas_miniaturas", nullable = false)
+    private int tentativasMiniaturas;
+
+    // Até quando a capa está reservada para o backfill de uma réplica
+    @Column(name = "miniaturas_reservadas_ate")
+    private Instant miniaturasReservadasAte;
+
     public Long getId() {
         return id;
     }
@@ -83,5 +99,36 @@ public class AlbumCapa {
     public void setDataUpload(Instant dataUpload) {
         this.dataUpload = dataUpload;
     }
-}
 
+    public String getMiniaturas() {
+        return miniaturas;
+    }
+
+    public void setMiniaturas(String miniaturas) {
+        this.miniaturas = miniaturas;
+    }
+
+    public int getTentativasMiniaturas() {
+        return tentativasMiniaturas;
+    }
+
+    public void setTentativasMiniaturas(int tentativasMiniaturas) {
+        this.tentativasMiniaturas = tentativasMiniaturas;
+    }
+
+    public Instant getMiniaturasReservadasAte() {
+        return miniaturasReservadasAte;
+    }
+
+    public void setMiniaturasReservadasAte(Instant miniaturasReservadasAte) {
+        this.miniaturasReservadasAte = miniaturasReservadasAte;
+    }
+
+    public String getHashSha256() {
+        return hashSha256;
+    }
+
+    public void setHashSha256(String hashSha256) {
+        this.hashSha256 = hashSha256;
+    }
+}
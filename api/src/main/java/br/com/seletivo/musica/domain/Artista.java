@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -29,6 +30,12 @@ public class Artista {
     @Column(name = "data_criacao", nullable = false)
     private Instant dataCriacao = Instant.now();
 
+    // Incrementada pelo Hibernate a cada alteração; base do ETag e do If-Match.
+    // Sem valor inicial: o Spring Data usa versão nula para reconhecer entidades novas no save().
+    @Version
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
     @OneToMany(mappedBy = "artista")
     private List<Album> albuns = new ArrayList<>();
 
@@ -64,6 +71,14 @@ public class Artista {
         this.dataCriacao = dataCriacao;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     public List<Album> getAlbuns() {
         return albuns;
     }
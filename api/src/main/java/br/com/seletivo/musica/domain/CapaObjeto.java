@@ -0,0 +1,73 @@
+package br.com.seletivo.musica.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Objeto de capa armazenado no MinIO, identificado pelo SHA-256 do conteúdo.
+ * Várias AlbumCapa podem apontar para o mesmo objeto; "referencias" conta quantas.
+ */
+@Entity
+@Table(name = "capa_objeto")
+public class CapaObjeto {
+
+    @Id
+    @Column(name = "hash_sha256", length = 64)
+    private String hashSha256;
+
+    @Column(name = "objeto_minio", nullable = false, length = 300)
+    private String objetoMinio;
+
+    @Column(name = "tamanho_bytes", nullable = false)
+    private Long tamanhoBytes;
+
+    @Column(name = "referencias", nullable = false)
+    private Integer referencias;
+
+    @Column(name = "data_criacao", nullable = false)
+    private Instant dataCriacao = Instant.now();
+
+    public String getHashSha256() {
+        return hashSha256;
+    }
+
+    public void setHashSha256(String hashSha256) {
+        this.hashSha256 = hashSha256;
+    }
+
+    public String getObjetoMinio() {
+        return objetoMinio;
+    }
+
+    public void setObjetoMinio(String objetoMinio) {
+        this.objetoMinio = objetoMinio;
+    }
+
+    public Long getTamanhoBytes() {
+        return tamanhoBytes;
+    }
+
+    public void setTamanhoBytes(Long tamanhoBytes) {
+        this.tamanhoBytes = tamanhoBytes;
+    }
+
+    public Integer getReferencias() {
+        return referencias;
+    }
+
+    public void setReferencias(Integer referencias) {
+        this.referencias = referencias;
+    }
+
+    public Instant getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public void setDataCriacao(Instant dataCriacao) {
+        this.dataCriacao = dataCriacao;
+    }
+}
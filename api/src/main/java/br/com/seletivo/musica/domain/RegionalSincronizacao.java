@@ -0,0 +1,109 @@
+package br.com.seletivo.musica.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * Estado da última sincronização com a API de regionais: validadores HTTP (ETag/Last-Modified) e hash do
+ * último conteúdo aplicado, para que uma lista inalterada não seja comparada de novo com o banco.
+ * Também guarda a duração e as linhas alteradas da última execução.
+ */
+@Entity
+@Table(name = "regional_sincronizacao")
+public class RegionalSincronizacao {
+
+    // URL de origem: trocar de endpoint começa do zero
+    @Id
+    @Column(name = "origem", length = 500)
+    private String origem;
+
+    @Column(name = "etag", length = 200)
+    private String etag;
+
+    // Valor do cabeçalho como recebido; é devolvido igual em If-Modified-Since
+    @Column(name = "last_modified", length = 100)
+    private String lastModified;
+
+    @Column(name = "hash_sha256", length = 64)
+    private String hashSha256;
+
+    @Column(name = "data_verificacao", nullable = false)
+    private Instant dataVerificacao;
+
+    @Column(name = "data_alteracao")
+    private Instant dataAlteracao;
+
+    @Column(name = "duracao_ms", nullable = false)
+    private Long duracaoMs;
+
+    @Column(name = "linhas_alteradas", nullable = false)
+    private Integer linhasAlteradas;
+
+    public String getOrigem() {
+        return origem;
+    }
+
+    public void setOrigem(String origem) {
+        this.origem = origem;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getHashSha256() {
+        return hashSha256;
+    }
+
+    public void setHashSha256(String hashSha256) {
+        this.hashSha256 = hashSha256;
+    }
+
+    public Instant getDataVerificacao() {
+        return dataVerificacao;
+    }
+
+    public void setDataVerificacao(Instant dataVerificacao) {
+        this.dataVerificacao = dataVerificacao;
+    }
+
+    public Instant getDataAlteracao() {
+        return dataAlteracao;
+    }
+
+    public void setDataAlteracao(Instant dataAlteracao) {
+        this.dataAlteracao = dataAlteracao;
+    }
+
+    public Long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    public void setDuracaoMs(Long duracaoMs) {
+        this.duracaoMs = duracaoMs;
+    }
+
+    public Integer getLinhasAlteradas() {
+        return linhasAlteradas;
+    }
+
+    public void setLinhasAlteradas(Integer linhasAlteradas) {
+        this.linhasAlteradas = linhasAlteradas;
+    }
+}
@@ -0,0 +1,153 @@
+package br.com.seletivo.musica.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Uma execução (job) da sincronização de regionais, manual ou agendada.
+ * Fica no banco para que o status possa ser consultado em qualquer réplica.
+ */
+@Entity
+@Table(name = "regional_sincronizacao_execucao")
+public class RegionalSincronizacaoExecucao {
+
+    public enum Status {
+        PENDENTE,
+        EXECUTANDO,
+        CONCLUIDA,
+        // Outra réplica estava com o bloqueio da sincronização; nada foi feito
+        IGNORADA,
+        FALHOU
+    }
+
+    @Id
+    @Column(name = "id")
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Status status;
+
+    // MANUAL ou AGENDADA
+    @Column(name = "gatilho", nullable = false, length = 20)
+    private String gatilho;
+
+    @Column(name = "data_solicitacao", nullable = false)
+    private Instant dataSolicitacao;
+
+    @Column(name = "data_inicio")
+    private Instant dataInicio;
+
+    @Column(name = "data_fim")
+    private Instant dataFim;
+
+    @Column(name = "alterada")
+    private Boolean alterada;
+
+    @Column(name = "criadas")
+    private Integer criadas;
+
+    @Column(name = "inativadas")
+    private Integer inativadas;
+
+    @Column(name = "duracao_ms")
+    private Long duracaoMs;
+
+    @Column(name = "erro", length = 1000)
+    private String erro;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getGatilho() {
+        return gatilho;
+    }
+
+    public void setGatilho(String gatilho) {
+        this.gatilho = gatilho;
+    }
+
+    public Instant getDataSolicitacao() {
+        return dataSolicitacao;
+    }
+
+    public void setDataSolicitacao(Instant dataSolicitacao) {
+        this.dataSolicitacao = dataSolicitacao;
+    }
+
+    public Instant getDataInicio() {
+        return dataInicio;
+    }
+
+    public void setDataInicio(Instant dataInicio) {
+        this.dataInicio = dataInicio;
+    }
+
+    public Instant getDataFim() {
+        return dataFim;
+    }
+
+    public void setDataFim(Instant dataFim) {
+        this.dataFim = dataFim;
+    }
+
+    public Boolean getAlterada() {
+        return alterada;
+    }
+
+    public void setAlterada(Boolean alterada) {
+        this.alterada = alterada;
+    }
+
+    public Integer getCriadas() {
+        return criadas;
+    }
+
+    public void setCriadas(Integer criadas) {
+        this.criadas = criadas;
+    }
+
+    public Integer getInativadas() {
+        return inativadas;
+    }
+
+    public void setInativadas(Integer inativadas) {
+        this.inativadas = inativadas;
+    }
+
+    public Long getDuracaoMs() {
+        return duracaoMs;
+    }
+
+    public void setDuracaoMs(Long duracaoMs) {
+        this.duracaoMs = duracaoMs;
+    }
+
+    public String getErro() {
+        return erro;
+    }
+
+    public void setErro(String erro) {
+        this.erro = erro;
+    }
+}
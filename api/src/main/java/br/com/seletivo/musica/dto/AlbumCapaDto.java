@@ -1,9 +1,15 @@
 package br.com.seletivo.musica.dto;
 
+import java.util.Map;
+
+/**
+ * Capa de um álbum. "miniaturas" traz a URL de cada versão reduzida já gerada, por largura em pixels
+ * (ex: 64, 256, 1024); enquanto não forem geradas, fica vazio e deve-se usar a "url" original.
+ */
 public record AlbumCapaDto(
         Long id,
         String url,
-        String contentType
+        String contentType,
+        Map<Integer, String> miniaturas
 ) {
 }
-
@@ -2,11 +2,14 @@ package br.com.seletivo.musica.dto;
 
 import java.util.List;
 
+// Detalhes do artista com a primeira página de álbuns. Os demais vêm de
+// GET /albuns?artistaId={id}&after={albunsNextCursor}, até o cursor vir nulo.
 public record ArtistaDetalheDto(
         Long id,
         String nome,
         String tipo,
-        List<AlbumDto> albuns
+        long quantidadeAlbuns,
+        List<AlbumDto> albuns,
+        String albunsNextCursor
 ) {
 }
-
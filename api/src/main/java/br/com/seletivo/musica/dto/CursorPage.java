@@ -0,0 +1,11 @@
+package br.com.seletivo.musica.dto;
+
+import java.util.List;
+
+// Página da listagem por cursor (keyset). Não traz totais: o cliente segue nextCursor até ele vir nulo.
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor
+) {
+}
@@ -0,0 +1,9 @@
+package br.com.seletivo.musica.dto;
+
+// Linha rejeitada na importação; "linha" é o número da linha no arquivo enviado (a partir de 1)
+public record ImportacaoErroDto(
+        String tipo,
+        long linha,
+        String mensagem
+) {
+}
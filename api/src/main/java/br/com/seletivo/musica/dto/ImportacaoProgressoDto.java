@@ -0,0 +1,13 @@
+package br.com.seletivo.musica.dto;
+
+// Progresso da importação, enviado a cada lote gravado. O último evento tem tipo "resumo" (ou "falha", se um
+// lote não pôde ser gravado) e a duração total; os contadores só incluem lotes já commitados.
+public record ImportacaoProgressoDto(
+        String tipo,
+        long linhas,
+        long artistasCriados,
+        long albunsCriados,
+        long erros,
+        Long duracaoMs
+) {
+}
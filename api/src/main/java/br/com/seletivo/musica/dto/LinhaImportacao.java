@@ -0,0 +1,11 @@
+package br.com.seletivo.musica.dto;
+
+// Linha da importação em lote (um objeto por linha no NDJSON, ou uma linha do CSV com cabeçalho).
+// Sem título, a linha só cadastra o artista.
+public record LinhaImportacao(
+        String artista,
+        String tipo,
+        String titulo,
+        Integer anoLancamento
+) {
+}
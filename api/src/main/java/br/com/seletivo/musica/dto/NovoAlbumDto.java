@@ -0,0 +1,10 @@
+package br.com.seletivo.musica.dto;
+
+// Item dos lotes enviados em /topic/artistas/{id}/novos-albuns
+public record NovoAlbumDto(
+        Long id,
+        String titulo,
+        Long artistaId,
+        String nomeArtista
+) {
+}
@@ -0,0 +1,11 @@
+package br.com.seletivo.musica.dto;
+
+// Resultado de uma sincronização de regionais. "alterada" é false quando a API devolveu a mesma lista
+// (304 ou mesmo hash) e o banco não foi comparado.
+public record SincronizacaoRegionalDto(
+        boolean alterada,
+        int criadas,
+        int inativadas,
+        long duracaoMs
+) {
+}
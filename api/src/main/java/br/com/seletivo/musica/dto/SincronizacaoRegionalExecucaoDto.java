@@ -0,0 +1,17 @@
+package br.com.seletivo.musica.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Status de uma execução da sincronização de regionais. "resultado" só vem preenchido quando status = CONCLUIDA.
+public record SincronizacaoRegionalExecucaoDto(
+        UUID id,
+        String status,
+        String gatilho,
+        Instant dataSolicitacao,
+        Instant dataInicio,
+        Instant dataFim,
+        SincronizacaoRegionalDto resultado,
+        String erro
+) {
+}
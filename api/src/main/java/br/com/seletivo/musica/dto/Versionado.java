@@ -0,0 +1,8 @@
+package br.com.seletivo.musica.dto;
+
+// Representação e o ETag dela, lidos na mesma transação. corpo é nulo quando o cliente já tem a versão atual.
+public record Versionado<T>(
+        String etag,
+        T corpo
+) {
+}
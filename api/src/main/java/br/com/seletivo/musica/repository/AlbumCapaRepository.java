@@ -3,11 +3,73 @@ package br.com.seletivo.musica.repository;
 import br.com.seletivo.musica.domain.Album;
 import br.com.seletivo.musica.domain.AlbumCapa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface AlbumCapaRepository extends JpaRepository<AlbumCapa, Long> {
 
     List<AlbumCapa> findByAlbum(Album album);
-}
 
+    // Carrega as capas de vários álbuns em uma única consulta (evita N+1 nas listagens paginadas)
+    List<AlbumCapa> findByAlbumIdInOrderById(Collection<Long> albumIds);
+
+    // Miniaturas já geradas para cada conteúdo, entre os hashes informados (reaproveitadas na deduplicação).
+    // Todas as capas de um mesmo hash têm as mesmas miniaturas, então qualquer uma serve.
+    @Query("""
+            select c.hashSha256 as hashSha256, max(c.miniaturas) as miniaturas
+            from AlbumCapa c
+            where c.hashSha256 in :hashes and c.miniaturas is not null
+            group by c.hashSha256
+            """)
+    List<MiniaturasDoConteudo> buscarMiniaturasPorHash(@Param("hashes") Collection<String> hashes);
+
+    // Capas ainda sem miniaturas, enviadas antes de "enviadasAntes", a partir de um ID (backfill).
+    // As que já falharam "maxTentativas" vezes e as reservadas por outra réplica ficam de fora. Trava o lote até
+    // o fim da transação; linhas já travadas por outra réplica são puladas, não esperadas.
+    @Query(value = """
+            select * from album_capa
+            where miniaturas is null and data_upload < :enviadasAntes and id > :aposId
+              and tentativas_miniaturas < :maxTentativas
+              and (miniaturas_reservadas_ate is null or miniaturas_reservadas_ate < :agora)
+            order by id
+            limit :limite
+            for update skip locked
+            """, nativeQuery = true)
+    List<AlbumCapa> travarSemMiniaturas(@Param("enviadasAntes") Instant enviadasAntes,
+                                        @Param("aposId") long aposId,
+                                        @Param("maxTentativas") int maxTentativas,
+                                        @Param("agora") Instant agora,
+                                        @Param("limite") int limite);
+
+    @Modifying
+    @Query("update AlbumCapa c set c.miniaturasReservadasAte = :ate where c.id in :ids")
+    int reservarMiniaturas(@Param("ids") Collection<Long> ids, @Param("ate") Instant ate);
+
+    @Modifying
+    @Transactional
+    @Query("update AlbumCapa c set c.miniaturas = :miniaturas where c.id = :id")
+    int registrarMiniaturas(@Param("id") Long id, @Param("miniaturas") String miniaturas);
+
+    @Modifying
+    @Transactional
+    @Query("update AlbumCapa c set c.tentativasMiniaturas = c.tentativasMiniaturas + 1 where c.id = :id")
+    int registrarFalhaMiniaturas(@Param("id") Long id);
+
+    // As miniaturas aparecem no DTO do álbum, então registrá-las muda a versão (e o ETag) dele
+    @Modifying
+    @Transactional
+    @Query("update Album a set a.versao = a.versao + 1 where a.id = (select c.album.id from AlbumCapa c where c.id = :capaId)")
+    int incrementarVersaoDoAlbum(@Param("capaId") Long capaId);
+
+    interface MiniaturasDoConteudo {
+        String getHashSha256();
+
+        String getMiniaturas();
+    }
+}
@@ -5,11 +5,88 @@ import br.com.seletivo.musica.domain.Artista;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface AlbumRepository extends JpaRepository<Album, Long> {
 
     Page<Album> findByArtista(Artista artista, Pageable pageable);
 
-    Page<Album> findByArtista_NomeContainingIgnoreCase(String nomeArtista, Pageable pageable);
-}
+    long countByArtistaId(Long artistaId);
+
+    // Busca por substring no nome do artista (índice de trigramas idx_artista_nome_trgm),
+    // com os artistas mais parecidos com o termo primeiro.
+    @Query(value = """
+            select a from Album a join a.artista ar
+            where ar.nome ilike :padrao escape '\\'
+            order by similarity(ar.nome, :termo) desc
+            """,
+            countQuery = "select count(a) from Album a join a.artista ar where ar.nome ilike :padrao escape '\\'")
+    Page<Album> buscarPorNomeArtista(@Param("padrao") String padrao, @Param("termo") String termo, Pageable pageable);
+
+    // Busca por substring no título (índice de trigramas idx_album_titulo_trgm), mais parecidos primeiro.
+    @Query(value = """
+            select a from Album a
+            where a.titulo ilike :padrao escape '\\'
+            order by similarity(a.titulo, :termo) desc
+            """,
+            countQuery = "select count(a) from Album a where a.titulo ilike :padrao escape '\\'")
+    Page<Album> buscarPorTitulo(@Param("padrao") String padrao, @Param("termo") String termo, Pageable pageable);
+
+    // Consultas de paginação por cursor (keyset): buscam os álbuns posteriores à chave (ano, id) informada,
+    // sem OFFSET nem count. Álbuns sem ano entram como ano 0, igual ao índice idx_album_ano_id.
+    @Query("""
+            select a from Album a
+            where (coalesce(a.anoLancamento, 0), a.id) > (:ano, :id)
+            order by coalesce(a.anoLancamento, 0), a.id
+            """)
+    List<Album> buscarAposCursor(@Param("ano") int ano, @Param("id") long id, Pageable limite);
 
+    @Query("""
+            select a from Album a
+            where a.artista.id = :artistaId
+              and (coalesce(a.anoLancamento, 0), a.id) > (:ano, :id)
+            order by coalesce(a.anoLancamento, 0), a.id
+            """)
+    List<Album> buscarPorArtistaAposCursor(@Param("artistaId") Long artistaId,
+                                           @Param("ano") int ano,
+                                           @Param("id") long id,
+                                           Pageable limite);
+
+    @Query("""
+            select a from Album a
+            where a.artista.nome ilike :padrao escape '\\'
+              and (coalesce(a.anoLancamento, 0), a.id) > (:ano, :id)
+            order by coalesce(a.anoLancamento, 0), a.id
+            """)
+    List<Album> buscarPorNomeArtistaAposCursor(@Param("padrao") String padrao,
+                                               @Param("ano") int ano,
+                                               @Param("id") long id,
+                                               Pageable limite);
+
+    // O ilike usa o índice de trigramas idx_album_titulo_trgm; a ordem segue a chave (ano, id) do cursor,
+    // não a semelhança, para que a paginação seja estável
+    @Query("""
+            select a from Album a
+            where a.titulo ilike :padrao escape '\\'
+              and (coalesce(a.anoLancamento, 0), a.id) > (:ano, :id)
+            order by coalesce(a.anoLancamento, 0), a.id
+            """)
+    List<Album> buscarPorTituloAposCursor(@Param("padrao") String padrao,
+                                          @Param("ano") int ano,
+                                          @Param("id") long id,
+                                          Pageable limite);
+
+    @Query("select a.versao from Album a where a.id = :id")
+    Optional<Long> buscarVersao(@Param("id") Long id);
+
+    // Para alterações que não passam pelos campos do álbum (ex: envio de capas). Grava o que estiver pendente
+    // antes e limpa o contexto depois, para que nenhuma entidade fique com a versão antiga.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Album a set a.versao = a.versao + 1 where a.id = :id")
+    int incrementarVersao(@Param("id") Long id);
+}
@@ -1,12 +1,82 @@
 package br.com.seletivo.musica.repository;
 
 import br.com.seletivo.musica.domain.Artista;
+import br.com.seletivo.musica.dto.ArtistaResumoDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface ArtistaRepository extends JpaRepository<Artista, Long> {
 
-    Page<Artista> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
-}
+    // Resumo de artistas com a quantidade de álbuns contada no banco (sem carregar a coleção de álbuns).
+    // A contagem é uma subconsulta correlacionada por artista da página, servida pelo índice
+    // idx_album_artista_ano_id, em vez de agrupar todos os artistas com todos os álbuns antes de paginar.
+    @Query(value = """
+            select new br.com.seletivo.musica.dto.ArtistaResumoDto(a.id, a.nome, a.tipo,
+                   (select count(al) from Album al where al.artista = a))
+            from Artista a
+            """,
+            countQuery = "select count(a) from Artista a")
+    Page<ArtistaResumoDto> listarResumos(Pageable pageable);
+
+    // Busca por substring no nome (ILIKE, atendido pelo índice de trigramas idx_artista_nome_trgm),
+    // com os resultados mais parecidos com o termo primeiro.
+    @Query(value = """
+            select new br.com.seletivo.musica.dto.ArtistaResumoDto(a.id, a.nome, a.tipo,
+                   (select count(al) from Album al where al.artista = a))
+            from Artista a
+            where a.nome ilike :padrao escape '\\'
+            order by similarity(a.nome, :termo) desc
+            """,
+            countQuery = "select count(a) from Artista a where a.nome ilike :padrao escape '\\'")
+    Page<ArtistaResumoDto> listarResumosPorNome(@Param("padrao") String padrao,
+                                                @Param("termo") String termo,
+                                                Pageable pageable);
+
+    // Paginação por cursor (keyset) ordenada por (nome, id): sem agrupamento, o seek vira uma varredura
+    // de intervalo no índice idx_artista_nome_id que para no limite, e só as linhas devolvidas contam álbuns
+    @Query("""
+            select new br.com.seletivo.musica.dto.ArtistaResumoDto(a.id, a.nome, a.tipo,
+                   (select count(al) from Album al where al.artista = a))
+            from Artista a
+            where (a.nome, a.id) > (:nome, :id)
+            order by a.nome, a.id
+            """)
+    List<ArtistaResumoDto> listarResumosAposCursor(@Param("nome") String nome, @Param("id") long id, Pageable limite);
+
+    @Query("""
+            select new br.com.seletivo.musica.dto.ArtistaResumoDto(a.id, a.nome, a.tipo,
+                   (select count(al) from Album al where al.artista = a))
+            from Artista a
+            where a.nome ilike :padrao escape '\\'
+              and (a.nome, a.id) > (:nome, :id)
+            order by a.nome, a.id
+            """)
+    List<ArtistaResumoDto> listarResumosPorNomeAposCursor(@Param("padrao") String padrao,
+                                                          @Param("nome") String nome,
+                                                          @Param("id") long id,
+                                                          Pageable limite);
 
+    // Tudo o que muda o detalhe do artista: a versão dele e a quantidade e versões dos álbuns.
+    // Uma consulta agregada, sem carregar o artista nem os álbuns.
+    @Query("""
+            select a.versao as versao, count(al) as albuns, coalesce(sum(al.versao), 0L) as somaVersoesAlbuns
+            from Artista a left join a.albuns al
+            where a.id = :id
+            group by a.id, a.versao
+            """)
+    Optional<VersaoArtista> buscarVersao(@Param("id") Long id);
+
+    interface VersaoArtista {
+        Long getVersao();
+
+        Long getAlbuns();
+
+        Long getSomaVersoesAlbuns();
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.seletivo.musica.repository;
+
+import br.com.seletivo.musica.domain.CapaObjeto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CapaObjetoRepository extends JpaRepository<CapaObjeto, String> {
+
+    // Registra o objeto ou soma as novas referências, em um só comando (seguro com uploads concorrentes)
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into capa_objeto (hash_sha256, objeto_minio, tamanho_bytes, referencias)
+            values (:hash, :objeto, :tamanho, :referencias)
+            on conflict (hash_sha256) do update set referencias = capa_objeto.referencias + excluded.referencias
+            """, nativeQuery = true)
+    void adicionarReferencias(@Param("hash") String hash,
+                              @Param("objeto") String objeto,
+                              @Param("tamanho") long tamanho,
+                              @Param("referencias") int referencias);
+
+    // Bloqueio consultivo do PostgreSQL para um conteúdo, liberado no fim da transação; espera se outra sessão
+    // já o tem. Chave dupla (classe, hash do texto), que não se mistura com as chaves simples (ex: regionais).
+    @Query(value = "select 1 from pg_advisory_xact_lock(:classe, hashtext(:hash))", nativeQuery = true)
+    int travarConteudo(@Param("classe") int classe, @Param("hash") String hash);
+
+    // Dos hashes informados, os que já têm referências
+    @Query("select c.hashSha256 from CapaObjeto c where c.hashSha256 in :hashes and c.referencias > 0")
+    List<String> buscarReferenciados(@Param("hashes") Collection<String> hashes);
+}
@@ -0,0 +1,20 @@
+package br.com.seletivo.musica.repository;
+
+import br.com.seletivo.musica.domain.OutboxEvento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+
+    // Trava o lote até o fim da transação; linhas já travadas por outra réplica são puladas, não esperadas
+    @Query(value = "select * from outbox_evento order by id limit :limite for update skip locked", nativeQuery = true)
+    List<OutboxEvento> reservarLote(@Param("limite") int limite);
+
+    @Query("select min(e.dataCriacao) from OutboxEvento e")
+    Optional<Instant> buscarMaisAntigo();
+}
@@ -2,7 +2,12 @@ package br.com.seletivo.musica.repository;
 
 import br.com.seletivo.musica.domain.Regional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +15,15 @@ public interface RegionalRepository extends JpaRepository<Regional, Long> {
 
     List<Regional> findByAtivoTrue();
 
+    // Ordem estável: o mesmo conjunto gera sempre o mesmo JSON (e o mesmo ETag)
+    List<Regional> findByAtivoTrueOrderByIdAsc();
+
     Optional<Regional> findFirstByCodigoExternoAndAtivoTrue(Integer codigoExterno);
+
+    // Um único UPDATE para todas as regionais; grava as inserções pendentes antes e limpa o contexto depois,
+    // já que as entidades carregadas ficariam com o estado antigo
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Regional r set r.ativo = false, r.dataInativacao = :data where r.id in :ids")
+    int inativar(@Param("ids") Collection<Long> ids, @Param("data") Instant data);
 }
 
@@ -0,0 +1,25 @@
+package br.com.seletivo.musica.repository;
+
+import br.com.seletivo.musica.domain.RegionalSincronizacaoExecucao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RegionalSincronizacaoExecucaoRepository extends JpaRepository<RegionalSincronizacaoExecucao, UUID> {
+
+    // Execução em andamento (em qualquer réplica) solicitada depois de "desde"; as mais antigas são consideradas abandonadas
+    Optional<RegionalSincronizacaoExecucao> findFirstByStatusInAndDataSolicitacaoAfterOrderByDataSolicitacaoDesc(
+            Collection<RegionalSincronizacaoExecucao.Status> status, Instant desde);
+
+    @Modifying
+    @Transactional
+    @Query("delete from RegionalSincronizacaoExecucao e where e.dataSolicitacao < :antes")
+    int removerSolicitadasAntes(@Param("antes") Instant antes);
+}
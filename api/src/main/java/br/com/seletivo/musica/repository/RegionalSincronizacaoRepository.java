@@ -0,0 +1,13 @@
+package br.com.seletivo.musica.repository;
+
+import br.com.seletivo.musica.domain.RegionalSincronizacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RegionalSincronizacaoRepository extends JpaRepository<RegionalSincronizacao, String> {
+
+    // Bloqueio consultivo do PostgreSQL, liberado no fim da transação. Retorna false se outra sessão já o tem.
+    @Query(value = "select pg_try_advisory_xact_lock(:chave)", nativeQuery = true)
+    boolean tentarBloquear(@Param("chave") long chave);
+}
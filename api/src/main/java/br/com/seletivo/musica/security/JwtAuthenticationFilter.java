@@ -1,29 +1,47 @@
 package br.com.seletivo.musica.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    // Só existe com jwt.user-cache-ttl-seconds > 0: usuários relidos do banco no máximo uma vez por TTL.
+    // A consulta é feita fora do cache (getIfPresent/put), não pelo loader: o loader roda com a entrada travada
+    // (synchronized), o que no modo de threads virtuais prenderia a thread da plataforma durante a consulta.
+    private final Cache<String, UserDetails> usuarios;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService, JwtProperties properties) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.usuarios = properties.getUserCacheTtlSeconds() > 0
+                ? Caffeine.newBuilder()
+                        .expireAfterWrite(Duration.ofSeconds(properties.getUserCacheTtlSeconds()))
+                        .maximumSize(10_000)
+                        .build()
+                : null;
     }
 
     @Override
@@ -37,21 +55,53 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(7);
-        if (!jwtService.isTokenValid(token)) {
+        // Um único parse valida o token e já traz as claims
+        Optional<Claims> claims = jwtService.parseValidClaims(token);
+        // Refresh tokens não carregam papéis e só servem para /auth/refresh
+        if (claims.isEmpty() || "refresh".equals(claims.get().get("type"))) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String username = jwtService.extractSubject(token);
+        String username = claims.get().getSubject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+            UserDetails userDetails = carregarUsuario(username, claims.get());
+            if (userDetails != null) {
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
         }
 
         filterChain.doFilter(request, response);
     }
-}
 
+    /**
+     * Monta o usuário a partir das claims do token, sem consultar o banco.
+     * Consulta o banco (pelo cache) quando ele está habilitado ou quando o token é anterior à claim de papéis.
+     * Retorna null se o usuário não existir mais.
+     */
+    private UserDetails carregarUsuario(String username, Claims claims) {
+        String roles = claims.get(JwtService.CLAIM_ROLES, String.class);
+        if (usuarios == null && roles != null) {
+            return User.withUsername(username)
+                    .password("")
+                    .authorities(AuthorityUtils.commaSeparatedStringToAuthorityList(roles))
+                    .build();
+        }
+        try {
+            if (usuarios == null) {
+                return userDetailsService.loadUserByUsername(username);
+            }
+            UserDetails usuario = usuarios.getIfPresent(username);
+            if (usuario == null) {
+                usuario = userDetailsService.loadUserByUsername(username);
+                usuarios.put(username, usuario);
+            }
+            return usuario;
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -10,6 +10,11 @@ public class JwtProperties {
     private String secret;
     private int expirationMinutes;
     private int refreshExpirationMinutes;
+    // Tokens já verificados mantidos em memória até expirarem (evita refazer HMAC e parse do JSON)
+    private int verifiedCacheSize = 10_000;
+    // 0 = os papéis vêm só do token. Maior que 0 = o filtro relê o usuário do banco no máximo a cada N segundos,
+    // para que a revogação de papéis valha antes de o token expirar.
+    private int userCacheTtlSeconds = 0;
 
     public String getSecret() {
         return secret;
@@ -34,5 +39,20 @@ public class JwtProperties {
     public void setRefreshExpirationMinutes(int refreshExpirationMinutes) {
         this.refreshExpirationMinutes = refreshExpirationMinutes;
     }
-}
 
+    public int getVerifiedCacheSize() {
+        return verifiedCacheSize;
+    }
+
+    public void setVerifiedCacheSize(int verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+    }
+
+    public int getUserCacheTtlSeconds() {
+        return userCacheTtlSeconds;
+    }
+
+    public void setUserCacheTtlSeconds(int userCacheTtlSeconds) {
+        this.userCacheTtlSeconds = userCacheTtlSeconds;
+    }
+}
@@ -1,25 +1,54 @@
 package br.com.seletivo.musica.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtService {
 
+    // Claim do access token com os papéis do usuário, separados por vírgula (ex: "ROLE_ADMIN")
+    public static final String CLAIM_ROLES = "roles";
+
     private final JwtProperties properties;
+    // Chave e parser são montados uma vez, na criação (decodificar o segredo e montar o parser a cada
+    // requisição custava mais do que a própria verificação)
+    private final Key key;
+    private final JwtParser parser;
+    // Claims de tokens já verificados, por hash do token. Cada entrada expira junto com o token.
+    private final Cache<String, Claims> tokensVerificados;
 
-    public JwtService(JwtProperties properties) {
+    public JwtService(JwtProperties properties, MeterRegistry meterRegistry) {
         this.properties = properties;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(properties.getSecret()));
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(properties.getVerifiedCacheSize())
+                .expireAfter(new ExpiraComOToken())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokensVerificados, "jwt.tokens-verificados");
     }
 
     public String generateAccessToken(String subject, Map<String, Object> claims) {
@@ -30,16 +59,24 @@ public class JwtService {
         return buildToken(subject, Map.of("type", "refresh"), properties.getRefreshExpirationMinutes());
     }
 
-    public String extractSubject(String token) {
-        return parseAllClaims(token).getSubject();
-    }
-
-    public boolean isTokenValid(String token) {
+    /**
+     * Verifica assinatura e expiração do token e devolve as claims, ou vazio se o token for inválido.
+     * Tokens válidos ficam em cache até expirar, então chamadas repetidas com o mesmo token não refazem o parse.
+     */
+    public Optional<Claims> parseValidClaims(String token) {
+        String chave = hash(token);
+        Claims cached = tokensVerificados.getIfPresent(chave);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
         try {
-            parseAllClaims(token);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() != null) {
+                tokensVerificados.put(chave, claims);
+            }
+            return Optional.of(claims);
         } catch (Exception ex) {
-            return false;
+            return Optional.empty();
         }
     }
 
@@ -51,21 +88,36 @@ public class JwtService {
                 .setSubject(subject)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(expiration))
-                .signWith(signingKey(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    private Claims parseAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // O cache guarda o hash, e não o token em si, para não manter credenciais em memória
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    private Key signingKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(properties.getSecret());
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static class ExpiraComOToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String chave, Claims claims, long currentTime) {
+            long restante = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restante, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String chave, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(chave, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String chave, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
-
@@ -0,0 +1,50 @@
+package br.com.seletivo.musica.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buckets na memória da própria réplica. Com várias réplicas, o limite efetivo é multiplicado pelo número delas.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class MemoriaRateLimitStore implements RateLimitStore {
+
+    private final RateLimitProperties properties;
+    // Buckets ociosos são removidos por removerOciosos()
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public MemoriaRateLimitStore(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        meterRegistry.gaugeMapSize("rate-limit.buckets", List.of(), buckets);
+    }
+
+    @Override
+    public Consumo consumir(String chave, RateLimitProperties.Limite limite) {
+        long agora = System.nanoTime();
+        TokenBucket bucket = buckets.get(chave);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(chave,
+                    k -> new TokenBucket(limite.getCapacity(), limite.getRefillPerMinute(), agora));
+        }
+        return bucket.tentarConsumir(agora);
+    }
+
+    /**
+     * Remove buckets sem uso que já se recarregaram por completo. Como um bucket cheio é igual a um novo,
+     * a remoção não muda o limite de ninguém, e a memória fica proporcional aos usuários ativos.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void removerOciosos() {
+        long agora = System.nanoTime();
+        long ociosidade = TimeUnit.SECONDS.toNanos(properties.getIdleEvictionSeconds());
+        buckets.values().removeIf(bucket -> bucket.ociosoECheio(agora, ociosidade));
+    }
+}
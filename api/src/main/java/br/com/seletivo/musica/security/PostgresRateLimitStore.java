@@ -0,0 +1,218 @@
+package br.com.seletivo.musica.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buckets compartilhados entre as réplicas, na tabela rate_limit_bucket.
+ * Para não ir ao banco a cada requisição, cada réplica reserva um bloco de tokens (rate-limit.lease-fraction
+ * da capacidade, no mínimo rate-limit.lease-min-tokens) e o consome localmente. O banco só entrega tokens que existem, então o limite nunca é
+ * ultrapassado; tokens reservados e não usados voltam ao banco quando a reserva expira (rate-limit.lease-ttl-ms).
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "postgres")
+public class PostgresRateLimitStore implements RateLimitStore {
+
+    // Recarrega o bucket pelo tempo decorrido, devolve os tokens da reserva anterior e retira um novo bloco,
+    // tudo em um só comando com a linha travada
+    private static final String RESERVAR = """
+            with atual as (
+                select chave,
+                       least(?, tokens + ? + extract(epoch from (now() - atualizado_em))::float8 * ?) as disponiveis
+                from rate_limit_bucket
+                where chave = ?
+                for update
+            )
+            update rate_limit_bucket b
+            set tokens = a.disponiveis - least(?, floor(a.disponiveis)),
+                atualizado_em = now(),
+                capacidade = ?,
+                recarga_por_segundo = ?
+            from atual a
+            where b.chave = a.chave
+            returning least(?, floor(a.disponiveis))::bigint as concedidos, a.disponiveis
+            """;
+
+    private static final String CRIAR = """
+            insert into rate_limit_bucket (chave, tokens, capacidade, recarga_por_segundo, atualizado_em)
+            values (?, ?, ?, ?, now())
+            on conflict (chave) do nothing
+            """;
+
+    private static final String DEVOLVER = """
+            update rate_limit_bucket set tokens = least(capacidade, tokens + ?) where chave = ?
+            """;
+
+    // Só remove buckets que, recarregados, já estariam cheios: equivalem a um bucket novo
+    private static final String REMOVER_OCIOSOS = """
+            delete from rate_limit_bucket
+            where atualizado_em < now() - make_interval(secs => ?)
+              and tokens + extract(epoch from (now() - atualizado_em))::float8 * recarga_por_segundo >= capacidade
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RateLimitProperties properties;
+    private final Map<String, Reserva> reservas = new ConcurrentHashMap<>();
+    private final Counter idasAoBanco;
+
+    public PostgresRateLimitStore(JdbcTemplate jdbcTemplate, RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.idasAoBanco = meterRegistry.counter("rate-limit.reservas");
+        meterRegistry.gaugeMapSize("rate-limit.reservas-locais", List.of(), reservas);
+    }
+
+    @Override
+    public Consumo consumir(String chave, RateLimitProperties.Limite limite) {
+        long agora = System.nanoTime();
+        double porNano = limite.getRefillPerMinute() / 60_000_000_000.0;
+        Reserva reserva = reservas.get(chave);
+        if (reserva != null && reserva.valida(agora)) {
+            long restantes = reserva.usar();
+            if (restantes >= 0) {
+                long estimativa = restantes + (long) reserva.disponiveisNoBanco();
+                return new Consumo(true, estimativa, 0, nanosAte(limite.getCapacity() - estimativa, porNano));
+            }
+        }
+
+        // Reserva esgotada ou expirada: o que sobrou dela volta ao banco junto com o pedido do novo bloco
+        long devolvidos = reserva != null ? reserva.esvaziar() : 0;
+        Bloco obtido = reservar(chave, limite, tamanhoDoBloco(limite), devolvidos);
+        idasAoBanco.increment();
+        if (obtido.concedidos() == 0) {
+            return new Consumo(false, 0, nanosAte(1 - obtido.disponiveis(), porNano),
+                    nanosAte(limite.getCapacity() - obtido.disponiveis(), porNano));
+        }
+        // Um token é usado agora; o resto fica reservado para as próximas requisições desta réplica
+        double noBanco = obtido.disponiveis() - obtido.concedidos();
+        instalar(chave, reserva, new Reserva(obtido.concedidos() - 1, noBanco,
+                agora + TimeUnit.MILLISECONDS.toNanos(properties.getLeaseTtlMs())), agora);
+        long estimativa = obtido.concedidos() - 1 + (long) noBanco;
+        return new Consumo(true, estimativa, 0, nanosAte(limite.getCapacity() - estimativa, porNano));
+    }
+
+    /**
+     * Devolve ao banco os tokens de reservas expiradas e remove buckets ociosos.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.lease-ttl-ms:5000}")
+    public void expirarReservas() {
+        long agora = System.nanoTime();
+        List<Object[]> devolucoes = new ArrayList<>();
+        reservas.forEach((chave, reserva) -> {
+            if (!reserva.valida(agora) && reservas.remove(chave, reserva)) {
+                long sobra = reserva.esvaziar();
+                if (sobra > 0) {
+                    devolucoes.add(new Object[]{sobra, chave});
+                }
+            }
+        });
+        if (!devolucoes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DEVOLVER, devolucoes);
+        }
+    }
+
+    // Duas threads podem renovar a mesma chave ao mesmo tempo. A troca é atômica: se outra thread já instalou
+    // uma reserva válida, ela fica e os tokens da nova voltam ao banco; uma reserva substituída devolve o que sobrou
+    private void instalar(String chave, Reserva anterior, Reserva nova, long agora) {
+        Reserva[] descartada = new Reserva[1];
+        reservas.compute(chave, (k, atual) -> {
+            if (atual != null && atual != anterior && atual.valida(agora)) {
+                descartada[0] = nova;
+                return atual;
+            }
+            descartada[0] = atual;
+            return nova;
+        });
+        long sobra = descartada[0] != null ? descartada[0].esvaziar() : 0;
+        if (sobra > 0) {
+            jdbcTemplate.update(DEVOLVER, sobra, chave);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void removerOciosos() {
+        jdbcTemplate.update(REMOVER_OCIOSOS, properties.getIdleEvictionSeconds());
+    }
+
+    private Bloco reservar(String chave, RateLimitProperties.Limite limite, long bloco, long devolvidos) {
+        double porSegundo = limite.getRefillPerMinute() / 60.0;
+        Object[] parametros = {
+                limite.getCapacity(), devolvidos, porSegundo, chave,
+                bloco, limite.getCapacity(), porSegundo,
+                bloco
+        };
+        List<Bloco> resultado = jdbcTemplate.query(RESERVAR,
+                (rs, i) -> new Bloco(rs.getLong("concedidos"), rs.getDouble("disponiveis")), parametros);
+        if (resultado.isEmpty()) {
+            // Primeiro acesso desta chave em qualquer réplica: cria o bucket cheio e tenta de novo
+            jdbcTemplate.update(CRIAR, chave, (double) limite.getCapacity(), limite.getCapacity(), porSegundo);
+            resultado = jdbcTemplate.query(RESERVAR,
+                    (rs, i) -> new Bloco(rs.getLong("concedidos"), rs.getDouble("disponiveis")), parametros);
+        }
+        return resultado.get(0);
+    }
+
+    // Com a capacidade padrão (10) a fração sozinha daria um token por bloco, ou seja, uma ida ao banco por requisição
+    private long tamanhoDoBloco(RateLimitProperties.Limite limite) {
+        long pelaFracao = (long) (limite.getCapacity() * properties.getLeaseFraction());
+        long bloco = Math.min(limite.getCapacity(), Math.max(pelaFracao, properties.getLeaseMinTokens()));
+        return Math.max(1, bloco);
+    }
+
+    private static long nanosAte(double tokensFaltando, double porNano) {
+        return tokensFaltando <= 0 ? 0 : (long) Math.ceil(tokensFaltando / porNano);
+    }
+
+    private record Bloco(long concedidos, double disponiveis) {
+    }
+
+    // Tokens reservados por esta réplica. usar() e esvaziar() são atômicos, então nenhum token é usado duas vezes.
+    private static final class Reserva {
+
+        private final AtomicLong tokens;
+        private final double disponiveisNoBanco;
+        private final long expiraEm;
+
+        Reserva(long tokens, double disponiveisNoBanco, long expiraEm) {
+            this.tokens = new AtomicLong(tokens);
+            this.disponiveisNoBanco = disponiveisNoBanco;
+            this.expiraEm = expiraEm;
+        }
+
+        boolean valida(long agora) {
+            return agora - expiraEm < 0;
+        }
+
+        // Retorna quantos tokens restam depois de usar um, ou -1 se a reserva já estava vazia
+        long usar() {
+            while (true) {
+                long atual = tokens.get();
+                if (atual <= 0) {
+                    return -1;
+                }
+                if (tokens.compareAndSet(atual, atual - 1)) {
+                    return atual - 1;
+                }
+            }
+        }
+
+        long esvaziar() {
+            return tokens.getAndSet(0);
+        }
+
+        double disponiveisNoBanco() {
+            return disponiveisNoBanco;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.seletivo.musica.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limites de requisições por usuário autenticado, por grupo de rotas.
+ * O primeiro grupo cujo padrão casar com a rota é usado; "default" vale para as rotas que não casarem com nenhum.
+ * Dentro do grupo, "roles" sobrescreve o limite para usuários com aquele papel (chave sem o prefixo ROLE_).
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    // "memory" (cada réplica conta sozinha) ou "postgres" (contagem compartilhada entre as réplicas)
+    private String store = "memory";
+    private Map<String, Grupo> groups = new LinkedHashMap<>();
+    // Buckets sem uso há mais tempo que isso (e já recarregados) são descartados
+    private long idleEvictionSeconds = 600;
+    private long evictionIntervalMs = 60_000;
+    // Store "postgres": fração da capacidade que cada réplica reserva por ida ao banco,
+    // e por quanto tempo a reserva vale antes de devolver ao banco o que sobrou.
+    // leaseMinTokens evita blocos de um token só em limites pequenos, que levariam toda requisição ao banco
+    private double leaseFraction = 0.1;
+    private long leaseMinTokens = 5;
+    private long leaseTtlMs = 5_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public Map<String, Grupo> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, Grupo> groups) {
+        this.groups = groups;
+    }
+
+    public long getIdleEvictionSeconds() {
+        return idleEvictionSeconds;
+    }
+
+    public void setIdleEvictionSeconds(long idleEvictionSeconds) {
+        this.idleEvictionSeconds = idleEvictionSeconds;
+    }
+
+    public long getEvictionIntervalMs() {
+        return evictionIntervalMs;
+    }
+
+    public void setEvictionIntervalMs(long evictionIntervalMs) {
+        this.evictionIntervalMs = evictionIntervalMs;
+    }
+
+    public double getLeaseFraction() {
+        return leaseFraction;
+    }
+
+    public void setLeaseFraction(double leaseFraction) {
+        this.leaseFraction = leaseFraction;
+    }
+
+    public long getLeaseMinTokens() {
+        return leaseMinTokens;
+    }
+
+    public void setLeaseMinTokens(long leaseMinTokens) {
+        this.leaseMinTokens = leaseMinTokens;
+    }
+
+    public long getLeaseTtlMs() {
+        return leaseTtlMs;
+    }
+
+    public void setLeaseTtlMs(long leaseTtlMs) {
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    public static class Limite {
+
+        // Rajada máxima e ritmo sustentado
+        private long capacity = 10;
+        private long refillPerMinute = 10;
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public long getRefillPerMinute() {
+            return refillPerMinute;
+        }
+
+        public void setRefillPerMinute(long refillPerMinute) {
+            this.refillPerMinute = refillPerMinute;
+        }
+    }
+
+    public static class Grupo extends Limite {
+
+        private List<String> paths = List.of();
+        private Map<String, Limite> roles = new LinkedHashMap<>();
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public Map<String, Limite> getRoles() {
+            return roles;
+        }
+
+        public void setRoles(Map<String, Limite> roles) {
+            this.roles = roles;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.seletivo.musica.security;
+
+/**
+ * Onde ficam os token buckets do rate limit. A implementação é escolhida por rate-limit.store:
+ * "memory" (padrão, cada réplica conta sozinha) ou "postgres" (contagem compartilhada entre réplicas).
+ * Outro backend compartilhado (ex: Redis) só precisa implementar esta interface.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Tenta consumir um token do bucket identificado pela chave, criando-o cheio se ainda não existir.
+     */
+    Consumo consumir(String chave, RateLimitProperties.Limite limite);
+
+    /**
+     * Resultado de uma tentativa: se foi permitida, quantos tokens restam,
+     * em quanto tempo haverá um token (quando negada) e em quanto tempo o bucket estará cheio.
+     */
+    record Consumo(boolean permitido, long restantes, long nanosAteProximo, long nanosAteCheio) {
+    }
+}
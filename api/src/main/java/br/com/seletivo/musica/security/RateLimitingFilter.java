@@ -1,68 +1,121 @@
 package br.com.seletivo.musica.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Instant;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Limita as requisições de cada usuário autenticado com token buckets (ver RateLimitProperties).
+ * As respostas trazem os cabeçalhos RateLimit-Limit/Remaining/Reset e, quando negadas, 429 com Retry-After.
+ */
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter {
 
-    private static final int LIMIT = 10;
-    private static final long WINDOW_MILLIS = 60_000L;
+    private static final String GRUPO_PADRAO = "default";
 
-    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    // Um bucket por grupo de rotas + papel + usuário
+    private final RateLimitStore store;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitingFilter(RateLimitProperties properties, RateLimitStore store, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated()) {
-            String key = authentication.getName();
-            if (!isAllowed(key)) {
-                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
-                return;
-            }
+        if (!properties.isEnabled() || authentication == null || !authentication.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Regra regra = resolverRegra(request, authentication);
+        if (regra == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String chave = regra.nome() + ':' + authentication.getName();
+        RateLimitStore.Consumo consumo = store.consumir(chave, regra.limite());
+
+        response.setHeader("RateLimit-Limit", String.valueOf(regra.limite().getCapacity()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(consumo.restantes()));
+        response.setHeader("RateLimit-Reset", String.valueOf(segundos(consumo.nanosAteCheio())));
+        if (!consumo.permitido()) {
+            meterRegistry.counter("rate-limit.negadas", "grupo", regra.grupo()).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos(consumo.nanosAteProximo())));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
         }
 
         filterChain.doFilter(request, response);
     }
 
-    private boolean isAllowed(String key) {
-        long now = Instant.now().toEpochMilli();
-        Window window = windows.computeIfAbsent(key, k -> new Window(now, 0));
-        synchronized (window) {
-            if (now - window.start >= WINDOW_MILLIS) {
-                window.start = now;
-                window.count = 0;
+    // Grupo pela rota (o primeiro que casar, senão "default") e, dentro dele, o maior limite entre os papéis do usuário
+    private Regra resolverRegra(HttpServletRequest request, Authentication authentication) {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        String nomeGrupo = GRUPO_PADRAO;
+        RateLimitProperties.Grupo grupo = properties.getGroups().get(GRUPO_PADRAO);
+        for (Map.Entry<String, RateLimitProperties.Grupo> entry : properties.getGroups().entrySet()) {
+            if (!entry.getKey().equals(GRUPO_PADRAO) && casa(entry.getValue(), caminho)) {
+                nomeGrupo = entry.getKey();
+                grupo = entry.getValue();
+                break;
+            }
+        }
+        if (grupo == null) {
+            return null;
+        }
+
+        RateLimitProperties.Limite limite = grupo;
+        String papel = "";
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String nome = authority.getAuthority().startsWith("ROLE_")
+                    ? authority.getAuthority().substring(5)
+                    : authority.getAuthority();
+            for (Map.Entry<String, RateLimitProperties.Limite> entry : grupo.getRoles().entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(nome)
+                        && (papel.isEmpty() || entry.getValue().getCapacity() > limite.getCapacity())) {
+                    limite = entry.getValue();
+                    papel = entry.getKey();
+                }
             }
-            if (window.count >= LIMIT) {
-                return false;
+        }
+        return new Regra(nomeGrupo, nomeGrupo + ':' + papel, limite);
+    }
+
+    private boolean casa(RateLimitProperties.Grupo grupo, String caminho) {
+        for (String padrao : grupo.getPaths()) {
+            if (pathMatcher.match(padrao, caminho)) {
+                return true;
             }
-            window.count++;
-            return true;
         }
+        return false;
     }
 
-    private static class Window {
-        long start;
-        int count;
+    private static long segundos(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
 
-        Window(long start, int count) {
-            this.start = start;
-            this.count = count;
-        }
+    private record Regra(String grupo, String nome, RateLimitProperties.Limite limite) {
     }
 }
-
@@ -1,5 +1,6 @@
 package br.com.seletivo.musica.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -36,6 +37,9 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Fim de respostas assíncronas (ex: importação em streaming) de requisições já autorizadas;
+                        // o JWT não é reprocessado nesse dispatch
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
@@ -65,8 +69,11 @@ public class SecurityConfig {
         // Usar setAllowedOriginPatterns para suportar "*" com allowCredentials(true)
         configuration.setAllowedOriginPatterns(List.of("*"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Cache-Control"));
-        configuration.setExposedHeaders(List.of("Authorization"));
+        // If-None-Match e If-Match: requisições condicionais com o ETag (304 nas leituras, 412 nas edições)
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Cache-Control",
+                "If-Match", "If-None-Match"));
+        configuration.setExposedHeaders(List.of("Authorization", "ETag",
+                "RateLimit-Limit", "RateLimit-Remaining", "RateLimit-Reset", "Retry-After"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,62 @@
+package br.com.seletivo.musica.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Token bucket sem locks: o estado (tokens e instante da última atualização) é imutável
+ * e trocado por compare-and-set, então requisições concorrentes do mesmo usuário nunca bloqueiam.
+ * Os instantes são em nanos (System.nanoTime), recebidos de quem chama para facilitar os testes.
+ */
+final class TokenBucket {
+
+    private final long capacidade;
+    private final double tokensPorNano;
+    private final AtomicReference<Estado> estado;
+
+    TokenBucket(long capacidade, long recargaPorMinuto, long agora) {
+        if (capacidade <= 0 || recargaPorMinuto <= 0) {
+            throw new IllegalArgumentException("Capacidade e recarga do rate limit devem ser positivas");
+        }
+        this.capacidade = capacidade;
+        this.tokensPorNano = recargaPorMinuto / 60_000_000_000.0;
+        this.estado = new AtomicReference<>(new Estado(capacidade, agora));
+    }
+
+    RateLimitStore.Consumo tentarConsumir(long agora) {
+        while (true) {
+            Estado atual = estado.get();
+            long instante = Math.max(agora, atual.atualizadoEm());
+            double tokens = tokensEm(atual, instante);
+            if (tokens < 1) {
+                // Negado: nada muda no estado, então não precisa de CAS
+                return new RateLimitStore.Consumo(false, 0, nanosAte(1 - tokens), nanosAte(capacidade - tokens));
+            }
+            Estado novo = new Estado(tokens - 1, instante);
+            if (estado.compareAndSet(atual, novo)) {
+                return new RateLimitStore.Consumo(true, (long) novo.tokens(), 0, nanosAte(capacidade - novo.tokens()));
+            }
+        }
+    }
+
+    long capacidade() {
+        return capacidade;
+    }
+
+    // Um bucket cheio equivale a um recém-criado, então pode ser descartado sem perder nada
+    boolean ociosoECheio(long agora, long ociosidadeMinima) {
+        Estado atual = estado.get();
+        return agora - atual.atualizadoEm() >= ociosidadeMinima && tokensEm(atual, agora) >= capacidade;
+    }
+
+    private double tokensEm(Estado estado, long agora) {
+        long decorrido = Math.max(0, agora - estado.atualizadoEm());
+        return Math.min(capacidade, estado.tokens() + decorrido * tokensPorNano);
+    }
+
+    private long nanosAte(double tokensFaltando) {
+        return (long) Math.ceil(tokensFaltando / tokensPorNano);
+    }
+
+    private record Estado(double tokens, long atualizadoEm) {
+    }
+}
@@ -1,50 +1,61 @@
 package br.com.seletivo.musica.service;
 
 import br.com.seletivo.musica.domain.Album;
+import br.com.seletivo.musica.domain.AlbumCapa;
 import br.com.seletivo.musica.domain.Artista;
 import br.com.seletivo.musica.dto.AlbumCapaDto;
 import br.com.seletivo.musica.dto.AlbumDto;
 import br.com.seletivo.musica.dto.AlbumRequest;
+import br.com.seletivo.musica.dto.CursorPage;
+import br.com.seletivo.musica.repository.AlbumCapaRepository;
 import br.com.seletivo.musica.repository.AlbumRepository;
 import br.com.seletivo.musica.repository.ArtistaRepository;
 import br.com.seletivo.musica.storage.MinioService;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * Serviço responsável por gerenciar Álbuns.
  * Inclui lógica de cadastro, listagem, upload de capas e notificação via WebSocket.
+ * Listagens e detalhes são somente leitura: com a réplica habilitada (replica.enabled), vão para ela.
  */
 @Service
 @Transactional
 public class AlbumService {
 
     private final AlbumRepository albumRepository;
+    private final AlbumCapaRepository albumCapaRepository;
     private final ArtistaRepository artistaRepository;
     private final MinioService minioService;
-    // Template para envio de mensagens WebSocket
-    private final org.springframework.messaging.simp.SimpMessagingTemplate messagingTemplate;
+    // Eventos gravados na transação do álbum e publicados depois do commit (notificação WebSocket)
+    private final OutboxService outboxService;
 
     public AlbumService(AlbumRepository albumRepository,
+                        AlbumCapaRepository albumCapaRepository,
                         ArtistaRepository artistaRepository,
                         MinioService minioService,
-                        org.springframework.messaging.simp.SimpMessagingTemplate messagingTemplate) {
+                        OutboxService outboxService) {
         this.albumRepository = albumRepository;
+        this.albumCapaRepository = albumCapaRepository;
         this.artistaRepository = artistaRepository;
         this.minioService = minioService;
-        this.messagingTemplate = messagingTemplate;
+        this.outboxService = outboxService;
     }
 
     /**
-     * Lista álbuns aplicando filtros opcionais (ID do artista ou nome do artista).
+     * Lista álbuns aplicando filtros opcionais (ID do artista, nome do artista ou título do álbum).
+     * As buscas por nome e título trazem primeiro os resultados mais parecidos com o termo.
      */
-    public Page<AlbumDto> listar(Long artistaId, String nomeArtista, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Page<AlbumDto> listar(Long artistaId, String nomeArtista, String titulo, Pageable pageable) {
         Page<Album> page;
         if (artistaId != null) {
             // Se foi passado ID do artista, busca apenas desse artista
@@ -52,18 +63,74 @@ public class AlbumService {
             page = albumRepository.findByArtista(artista, pageable);
         } else if (nomeArtista != null && !nomeArtista.isBlank()) {
             // Se foi passado nome do artista, filtra por nome
-            page = albumRepository.findByArtista_NomeContainingIgnoreCase(nomeArtista, pageable);
+            page = albumRepository.buscarPorNomeArtista(Busca.padraoContem(nomeArtista), nomeArtista.trim(), pageable);
+        } else if (titulo != null && !titulo.isBlank()) {
+            // Se foi passado título, filtra pelo título do álbum
+            page = albumRepository.buscarPorTitulo(Busca.padraoContem(titulo), titulo.trim(), pageable);
         } else {
             // Caso contrário, retorna todos os álbuns
             page = albumRepository.findAll(pageable);
         }
+        // Carrega as capas de toda a página em uma única consulta, em vez de uma por álbum.
+        // Não usamos fetch join aqui porque, combinado com paginação, o Hibernate paginaria em memória.
+        Map<Long, List<AlbumCapa>> capasPorAlbum = carregarCapas(page.getContent());
+
         // Converte para DTO (incluindo URLs de capas)
-        return page.map(this::mapAlbum);
+        return page.map(album -> mapAlbum(album, capasPorAlbum.getOrDefault(album.getId(), List.of())));
+    }
+
+    /**
+     * Lista álbuns por cursor (keyset), ordenados por ano de lançamento e ID.
+     * Em vez de OFFSET e count(*), busca a partir da chave do último item da página anterior,
+     * então o custo não cresce com a profundidade da página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AlbumDto> listarPorCursor(Long artistaId, String nomeArtista, String titulo, String after, int size) {
+        int ano = Integer.MIN_VALUE;
+        long id = 0;
+        if (after != null && !after.isBlank()) {
+            String[] chave = Cursor.decodificar(after, 2);
+            try {
+                ano = Integer.parseInt(chave[0]);
+                id = Long.parseLong(chave[1]);
+            } catch (NumberFormatException e) {
+                throw new ParametroInvalidoException("Cursor inválido", e);
+            }
+        }
+
+        size = Cursor.limitarTamanho(size);
+        // Busca um item a mais para saber se existe próxima página
+        Pageable limite = PageRequest.of(0, size + 1);
+        List<Album> albuns;
+        if (artistaId != null) {
+            albuns = albumRepository.buscarPorArtistaAposCursor(artistaId, ano, id, limite);
+        } else if (nomeArtista != null && !nomeArtista.isBlank()) {
+            albuns = albumRepository.buscarPorNomeArtistaAposCursor(Busca.padraoContem(nomeArtista), ano, id, limite);
+        } else if (titulo != null && !titulo.isBlank()) {
+            albuns = albumRepository.buscarPorTituloAposCursor(Busca.padraoContem(titulo), ano, id, limite);
+        } else {
+            albuns = albumRepository.buscarAposCursor(ano, id, limite);
+        }
+
+        String nextCursor = null;
+        if (albuns.size() > size) {
+            albuns = albuns.subList(0, size);
+            Album ultimo = albuns.get(size - 1);
+            int ultimoAno = ultimo.getAnoLancamento() != null ? ultimo.getAnoLancamento() : 0;
+            nextCursor = Cursor.codificar(ultimoAno, ultimo.getId());
+        }
+
+        Map<Long, List<AlbumCapa>> capasPorAlbum = carregarCapas(albuns);
+        List<AlbumDto> content = albuns.stream()
+                .map(album -> mapAlbum(album, capasPorAlbum.getOrDefault(album.getId(), List.of())))
+                .collect(Collectors.toList());
+        return new CursorPage<>(content, size, nextCursor);
     }
 
     /**
      * Busca um álbum pelo ID.
      */
+    @Transactional(readOnly = true)
     public AlbumDto buscarPorId(Long id) {
         Album album = albumRepository.findById(id).orElseThrow();
         return mapAlbum(album);
@@ -86,23 +153,28 @@ public class AlbumService {
         
         AlbumDto dto = mapAlbum(album);
 
-        // Notificar via WebSocket
-        // Envia mensagem para o tópico "/topic/novos-albuns" que o frontend escuta
-        try {
-            messagingTemplate.convertAndSend("/topic/novos-albuns", "Novo álbum cadastrado: " + album.getTitulo() + " de " + artista.getNome());
-        } catch (Exception e) {
-            // Log erro mas não falha a transação se o WebSocket falhar
-            e.printStackTrace();
-        }
+        // Notifica os usuários conectados: gravado no outbox nesta transação e enviado pelo relay depois do commit
+        outboxService.registrar(OutboxService.ALBUM_CRIADO,
+                new NovoAlbumEvent(album.getId(), album.getTitulo(), artista.getId(), artista.getNome()));
 
         return dto;
     }
 
+    /**
+     * ETag do álbum, calculado só com a versão (sem montar o DTO nem assinar URLs).
+     */
+    @Transactional(readOnly = true)
+    public String etag(Long id) {
+        return Versao.etag(minioService.inicioJanelaAtual(), albumRepository.buscarVersao(id).orElseThrow());
+    }
+
     /**
      * Atualiza dados básicos do álbum.
+     * Com If-Match, falha se o álbum já estiver em outra versão (edição concorrente).
      */
-    public AlbumDto atualizar(Long id, AlbumRequest request) {
+    public AlbumDto atualizar(Long id, AlbumRequest request, String ifMatch) {
         Album album = albumRepository.findById(id).orElseThrow();
+        Versao.conferir(Versao.doIfMatch(ifMatch), album.getVersao());
         album.setTitulo(request.titulo());
         album.setAnoLancamento(request.anoLancamento());
         album = albumRepository.save(album);
@@ -117,21 +189,40 @@ public class AlbumService {
         Album album = albumRepository.findById(albumId).orElseThrow();
         // Chama o serviço de armazenamento (MinIO)
         minioService.uploadCapas(album, arquivos);
+        // As capas fazem parte do álbum: a versão (e o ETag) muda mesmo sem alterar os campos dele
+        albumRepository.incrementarVersao(albumId);
         
         // Recarrega o álbum para trazer as capas recém-adicionadas
         Album atualizado = albumRepository.findById(albumId).orElseThrow();
         return mapAlbum(atualizado);
     }
 
+    /**
+     * Busca as capas de um conjunto de álbuns com uma só consulta, agrupando por álbum.
+     */
+    private Map<Long, List<AlbumCapa>> carregarCapas(List<Album> albuns) {
+        if (albuns.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = albuns.stream().map(Album::getId).collect(Collectors.toList());
+        return albumCapaRepository.findByAlbumIdInOrderById(ids).stream()
+                .collect(Collectors.groupingBy(capa -> capa.getAlbum().getId()));
+    }
+
     /**
      * Converte entidade Album para DTO, gerando URLs assinadas.
      */
     private AlbumDto mapAlbum(Album album) {
-        var capasDto = album.getCapas().stream()
+        return mapAlbum(album, album.getCapas());
+    }
+
+    private AlbumDto mapAlbum(Album album, List<AlbumCapa> capas) {
+        var capasDto = capas.stream()
                 .map(capa -> new AlbumCapaDto(
                         capa.getId(),
-                        minioService.gerarUrlAssinada(capa, 30), // URL válida por 30 min
-                        capa.getContentType()
+                        minioService.gerarUrlAssinada(capa),
+                        capa.getContentType(),
+                        minioService.gerarUrlsMiniaturas(capa)
                 ))
                 .collect(Collectors.toList());
         return new AlbumDto(album.getId(), album.getTitulo(), album.getAnoLancamento(), capasDto);
@@ -1,41 +1,50 @@
 package br.com.seletivo.musica.service;
 
-import br.com.seletivo.musica.domain.Album;
 import br.com.seletivo.musica.domain.Artista;
-import br.com.seletivo.musica.dto.AlbumCapaDto;
 import br.com.seletivo.musica.dto.AlbumDto;
 import br.com.seletivo.musica.dto.ArtistaDetalheDto;
 import br.com.seletivo.musica.dto.ArtistaRequest;
 import br.com.seletivo.musica.dto.ArtistaResumoDto;
+import br.com.seletivo.musica.dto.CursorPage;
+import br.com.seletivo.musica.dto.Versionado;
 import br.com.seletivo.musica.repository.AlbumRepository;
 import br.com.seletivo.musica.repository.ArtistaRepository;
 import br.com.seletivo.musica.storage.MinioService;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Serviço responsável pelas regras de negócio relacionadas a Artistas.
  * Utiliza @Service para que o Spring gerencie essa classe como um componente.
  * Utiliza @Transactional para garantir que as operações no banco sejam atômicas.
+ * Listagens e detalhes são somente leitura: com a réplica habilitada (replica.enabled), vão para ela.
  */
 @Service
 @Transactional
 public class ArtistaService {
 
+    // Álbuns embutidos nos detalhes do artista; os seguintes são buscados pelo cursor
+    static final int ALBUNS_NO_DETALHE = 20;
+
     private final ArtistaRepository artistaRepository;
     private final AlbumRepository albumRepository;
+    private final AlbumService albumService;
     private final MinioService minioService;
 
     // Injeção de dependências via construtor (prática recomendada).
     public ArtistaService(ArtistaRepository artistaRepository,
                           AlbumRepository albumRepository,
+                          AlbumService albumService,
                           MinioService minioService) {
         this.artistaRepository = artistaRepository;
         this.albumRepository = albumRepository;
+        this.albumService = albumService;
         this.minioService = minioService;
     }
 
@@ -44,46 +53,68 @@ public class ArtistaService {
      * Se um nome for fornecido, filtra por nome (case insensitive).
      * Caso contrário, retorna todos.
      */
+    @Transactional(readOnly = true)
     public Page<ArtistaResumoDto> listar(String nome, Pageable pageable) {
-        Page<Artista> page;
+        // A quantidade de álbuns é calculada com count() na própria consulta,
+        // evitando inicializar a coleção de álbuns de cada artista da página.
         if (nome == null || nome.isBlank()) {
             // Busca todos se não houver filtro
-            page = artistaRepository.findAll(pageable);
-        } else {
-            // Busca contendo o nome ignorando maiúsculas/minúsculas
-            page = artistaRepository.findByNomeContainingIgnoreCase(nome, pageable);
+            return artistaRepository.listarResumos(pageable);
         }
-        // Converte a entidade Artista para o DTO de resumo
-        return page.map(artista -> new ArtistaResumoDto(
-                artista.getId(),
-                artista.getNome(),
-                artista.getTipo(),
-                artista.getAlbuns() != null ? artista.getAlbuns().size() : 0
-        ));
+        // Busca contendo o nome ignorando maiúsculas/minúsculas, mais parecidos primeiro
+        return artistaRepository.listarResumosPorNome(Busca.padraoContem(nome), nome.trim(), pageable);
+    }
+
+    /**
+     * Lista artistas por cursor (keyset), ordenados por nome e ID.
+     * Não executa count(*) e o custo de cada página independe da profundidade.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ArtistaResumoDto> listarPorCursor(String nome, String after, int size) {
+        String ultimoNome = "";
+        long ultimoId = 0;
+        if (after != null && !after.isBlank()) {
+            String[] chave = Cursor.decodificar(after, 2);
+            ultimoNome = chave[0];
+            try {
+                ultimoId = Long.parseLong(chave[1]);
+            } catch (NumberFormatException e) {
+                throw new ParametroInvalidoException("Cursor inválido", e);
+            }
+        }
+
+        size = Cursor.limitarTamanho(size);
+        // Busca um item a mais para saber se existe próxima página
+        Pageable limite = PageRequest.of(0, size + 1);
+        List<ArtistaResumoDto> artistas = (nome == null || nome.isBlank())
+                ? artistaRepository.listarResumosAposCursor(ultimoNome, ultimoId, limite)
+                : artistaRepository.listarResumosPorNomeAposCursor(Busca.padraoContem(nome), ultimoNome, ultimoId, limite);
+
+        String nextCursor = null;
+        if (artistas.size() > size) {
+            artistas = artistas.subList(0, size);
+            ArtistaResumoDto ultimo = artistas.get(size - 1);
+            nextCursor = Cursor.codificar(ultimo.nome(), ultimo.id());
+        }
+        return new CursorPage<>(artistas, size, nextCursor);
     }
 
     /**
-     * Busca os detalhes de um artista pelo ID.
-     * Inclui a lista de álbuns, gerando URLs temporárias para as capas.
+     * Busca os detalhes de um artista pelo ID, com o ETag correspondente.
+     * Inclui só a primeira página de álbuns, com as URLs temporárias das capas, e o cursor para as seguintes.
+     * Se o ETag satisfizer naoModificado (If-None-Match do cliente), o DTO não é montado e o corpo vem nulo.
      */
-    public ArtistaDetalheDto buscarPorId(Long id) {
-        // Busca o artista ou lança exceção se não encontrar
+    @Transactional(readOnly = true)
+    public Versionado<ArtistaDetalheDto> buscarPorId(Long id, Predicate<String> naoModificado) {
+        String etag = etag(id);
+        if (naoModificado.test(etag)) {
+            return new Versionado<>(etag, null);
+        }
+        // Mesma transação, então mesma conexão: com a réplica habilitada, ETag e corpo vêm do mesmo banco.
+        // O ETag é lido antes do corpo, então nunca é mais novo que ele: se o artista mudar no meio da leitura,
+        // o próximo If-None-Match não casa e o cliente busca de novo, em vez de ficar com um corpo antigo.
         Artista artista = artistaRepository.findById(id).orElseThrow();
-        
-        // Busca os álbuns associados ao artista
-        var albuns = albumRepository.findByArtista(artista, Pageable.unpaged()).getContent();
-        
-        // Converte cada álbum para DTO, gerando as URLs assinadas das capas
-        var albunsDto = albuns.stream()
-                .map(this::mapAlbum)
-                .collect(Collectors.toList());
-        
-        return new ArtistaDetalheDto(
-                artista.getId(),
-                artista.getNome(),
-                artista.getTipo(),
-                albunsDto
-        );
+        return new Versionado<>(etag, detalhar(artista));
     }
 
     /**
@@ -96,34 +127,54 @@ public class ArtistaService {
         // Salva no banco de dados
         artista = artistaRepository.save(artista);
         // Retorna o DTO com a lista de álbuns vazia inicialmente
-        return new ArtistaDetalheDto(artista.getId(), artista.getNome(), artista.getTipo(), java.util.List.of());
+        return new ArtistaDetalheDto(artista.getId(), artista.getNome(), artista.getTipo(), 0, List.of(), null);
     }
 
     /**
-     * Atualiza os dados de um artista existente.
+     * ETag dos detalhes do artista, calculado só com a consulta de versões (sem montar o DTO nem assinar URLs).
+     * Muda quando o artista, algum de seus álbuns ou a janela das URLs assinadas muda.
      */
-    public ArtistaDetalheDto atualizar(Long id, ArtistaRequest request) {
+    @Transactional(readOnly = true)
+    public String etag(Long id) {
+        ArtistaRepository.VersaoArtista versao = artistaRepository.buscarVersao(id).orElseThrow();
+        return Versao.etag(minioService.inicioJanelaAtual(),
+                versao.getVersao(), versao.getAlbuns(), versao.getSomaVersoesAlbuns());
+    }
+
+    /**
+     * Atualiza os dados de um artista existente e devolve o ETag da nova versão, calculado na mesma transação.
+     * Com If-Match, falha se o artista já estiver em outra versão (edição concorrente).
+     */
+    public Versionado<ArtistaDetalheDto> atualizar(Long id, ArtistaRequest request, String ifMatch) {
         Artista artista = artistaRepository.findById(id).orElseThrow();
+        Versao.conferir(Versao.doIfMatch(ifMatch), artista.getVersao());
         artista.setNome(request.nome());
         artista.setTipo(request.tipo());
         artista = artistaRepository.save(artista);
-        // Retorna os dados atualizados chamando o método de busca
-        return buscarPorId(artista.getId());
+        // Monta a resposta com a entidade já carregada, sem buscar o artista de novo
+        ArtistaDetalheDto detalhe = detalhar(artista);
+        // A consulta de versões grava a alteração antes (flush automático), então já vê a versão nova
+        return new Versionado<>(etag(id), detalhe);
     }
 
     /**
-     * Método auxiliar para converter a entidade Album em AlbumDto.
-     * Responsável por gerar as URLs assinadas (presigned URLs) para as imagens no MinIO.
+     * Monta os detalhes do artista em um número fixo de consultas, qualquer que seja a discografia:
+     * a primeira página de álbuns pelo cursor de AlbumService, as capas dessa página e, se houver mais páginas,
+     * a quantidade total.
      */
-    private AlbumDto mapAlbum(Album album) {
-        var capasDto = album.getCapas().stream()
-                .map(capa -> new AlbumCapaDto(
-                        capa.getId(),
-                        // Gera URL válida por 30 minutos
-                        minioService.gerarUrlAssinada(capa, 30),
-                        capa.getContentType()
-                ))
-                .collect(Collectors.toList());
-        return new AlbumDto(album.getId(), album.getTitulo(), album.getAnoLancamento(), capasDto);
+    private ArtistaDetalheDto detalhar(Artista artista) {
+        CursorPage<AlbumDto> albuns = albumService.listarPorCursor(artista.getId(), null, null, "", ALBUNS_NO_DETALHE);
+        // Coube tudo na primeira página: a quantidade já é conhecida, sem o count
+        long quantidade = albuns.nextCursor() == null
+                ? albuns.content().size()
+                : albumRepository.countByArtistaId(artista.getId());
+        return new ArtistaDetalheDto(
+                artista.getId(),
+                artista.getNome(),
+                artista.getTipo(),
+                quantidade,
+                albuns.content(),
+                albuns.nextCursor()
+        );
     }
 }
@@ -0,0 +1,19 @@
+package br.com.seletivo.musica.service;
+
+/**
+ * Utilitário para montar padrões de busca por substring (ILIKE '%termo%').
+ */
+final class Busca {
+
+    private Busca() {
+    }
+
+    // Escapa os curingas do LIKE digitados pelo usuário (\ é o caractere de escape das consultas)
+    static String padraoContem(String termo) {
+        String escapado = termo.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escapado + "%";
+    }
+}
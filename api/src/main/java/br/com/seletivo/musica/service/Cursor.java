@@ -0,0 +1,48 @@
+package br.com.seletivo.musica.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Token opaco usado na paginação por cursor (keyset).
+ * Guarda os valores da chave de ordenação do último item retornado (ex: ano + id),
+ * codificados em Base64 URL-safe para que o cliente apenas os devolva no parâmetro "after".
+ */
+final class Cursor {
+
+    private static final String SEPARADOR = "\u0000";
+    // Mesmo limite que o Spring Data aplica ao tamanho de página do Pageable
+    private static final int TAMANHO_MAXIMO = 2000;
+
+    private Cursor() {
+    }
+
+    static int limitarTamanho(int size) {
+        return Math.max(1, Math.min(size, TAMANHO_MAXIMO));
+    }
+
+    static String codificar(Object... valores) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                sb.append(SEPARADOR);
+            }
+            sb.append(valores[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodificar(String token, int quantidade) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] valores = texto.split(SEPARADOR, -1);
+            if (valores.length != quantidade) {
+                throw new ParametroInvalidoException("Cursor inválido");
+            }
+            return valores;
+        } catch (IllegalArgumentException e) {
+            // Base64 malformado
+            throw new ParametroInvalidoException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package br.com.seletivo.musica.service;
+
+import java.util.List;
+
+/**
+ * Leva cada lote do relay do outbox (OutboxService) aos clientes WebSocket. A implementação é escolhida por
+ * outbox.fan-out: "local" (padrão, só os clientes desta réplica) ou "postgres" (clientes de todas as réplicas).
+ * O broker STOMP é o simples, em memória: cada réplica só conhece as próprias sessões.
+ */
+public interface DistribuicaoNovosAlbuns {
+
+    /**
+     * Chamado dentro da transação do relay, antes de remover o lote do outbox.
+     * Uma exceção desfaz a transação e o lote é tentado de novo.
+     */
+    void distribuir(List<NovoAlbumEvent> lote);
+}
@@ -0,0 +1,183 @@
+package br.com.seletivo.musica.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Exportação do catálogo inteiro (artistas, álbuns e metadados das capas) em NDJSON.
+ * Uma única consulta é lida por cursor do servidor: o driver do PostgreSQL só busca linhas em blocos de
+ * TAMANHO_BUSCA dentro de uma transação, então a memória não depende do tamanho do catálogo. Cada linha vai direto
+ * para a resposta, sem entidades nem contexto de persistência; se o cliente lê devagar, a escrita bloqueia e a
+ * leitura do cursor espera junto.
+ * Formato: uma linha {"artista":{...}} por artista, seguida de uma linha {"album":{...}} por álbum dele, com as capas.
+ * As capas trazem o objeto no MinIO, não URLs: as assinadas expiram bem antes de uma exportação grande ser usada.
+ */
+@Service
+public class ExportacaoService {
+
+    static final int TAMANHO_BUSCA = 1000;
+
+    // Na ordem da listagem dos álbuns de um artista (idx_album_artista_ano_id); as capas de um álbum vêm juntas
+    private static final String CATALOGO = """
+            select ar.id as artista_id, ar.nome, ar.tipo,
+                   al.id as album_id, al.titulo, al.ano_lancamento,
+                   c.id as capa_id, c.objeto_minio, c.content_type, c.tamanho_bytes, c.hash_sha256, c.miniaturas
+            from artista ar
+            left join album al on al.artista_id = ar.id
+            left join album_capa c on c.album_id = al.id
+            order by ar.id, coalesce(al.ano_lancamento, 0), al.id, c.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter linhasExportadas;
+    private final Timer duracao;
+
+    public ExportacaoService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        // Cópia com fetch size próprio, para não mudar o JdbcTemplate compartilhado
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(TAMANHO_BUSCA);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.linhasExportadas = meterRegistry.counter("exportacao.linhas");
+        this.duracao = meterRegistry.timer("exportacao.duracao");
+    }
+
+    /**
+     * Escreve o catálogo em "saida". Uma falha de escrita (ex: cliente desconectou) encerra a consulta e a transação.
+     */
+    public void exportar(OutputStream saida) throws IOException {
+        // O fechamento de "saida" fica com quem a abriu
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(saida)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                // Interrompida no meio de um álbum, a linha fica incompleta em vez de parecer válida
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+            json.setRootValueSeparator(null);
+            Escrita escrita = new Escrita(json);
+            duracao.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.query(CATALOGO, escrita);
+                escrita.fecharAlbum();
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Agrupa as linhas da consulta: artista e álbum só são escritos quando mudam, com as capas dentro do álbum
+    private class Escrita implements RowCallbackHandler {
+
+        private final JsonGenerator json;
+        private long artistaAtual;
+        private long albumAtual;
+
+        Escrita(JsonGenerator json) {
+            this.json = json;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long artistaId = rs.getLong("artista_id");
+                if (artistaId != artistaAtual) {
+                    fecharAlbum();
+                    artistaAtual = artistaId;
+                    json.writeStartObject();
+                    json.writeObjectFieldStart("artista");
+                    json.writeNumberField("id", artistaId);
+                    json.writeStringField("nome", rs.getString("nome"));
+                    json.writeStringField("tipo", rs.getString("tipo"));
+                    json.writeEndObject();
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    linhasExportadas.increment();
+                }
+                long albumId = rs.getLong("album_id");
+                if (rs.wasNull()) {
+                    return;
+                }
+                if (albumId != albumAtual) {
+                    fecharAlbum();
+                    albumAtual = albumId;
+                    json.writeStartObject();
+                    json.writeObjectFieldStart("album");
+                    json.writeNumberField("id", albumId);
+                    json.writeNumberField("artistaId", artistaId);
+                    json.writeStringField("titulo", rs.getString("titulo"));
+                    int anoLancamento = rs.getInt("ano_lancamento");
+                    if (rs.wasNull()) {
+                        json.writeNullField("anoLancamento");
+                    } else {
+                        json.writeNumberField("anoLancamento", anoLancamento);
+                    }
+                    json.writeArrayFieldStart("capas");
+                }
+                long capaId = rs.getLong("capa_id");
+                if (!rs.wasNull()) {
+                    escreverCapa(capaId, rs);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void escreverCapa(long capaId, ResultSet rs) throws IOException, SQLException {
+            json.writeStartObject();
+            json.writeNumberField("id", capaId);
+            json.writeStringField("objeto", rs.getString("objeto_minio"));
+            json.writeStringField("contentType", rs.getString("content_type"));
+            json.writeNumberField("tamanhoBytes", rs.getLong("tamanho_bytes"));
+            json.writeStringField("hashSha256", rs.getString("hash_sha256"));
+            // Larguras das miniaturas já geradas; null enquanto a capa não foi processada
+            String miniaturas = rs.getString("miniaturas");
+            json.writeFieldName("miniaturas");
+            if (miniaturas == null) {
+                json.writeNull();
+            } else {
+                json.writeStartArray();
+                for (String largura : miniaturas.split(",")) {
+                    if (!largura.isBlank()) {
+                        json.writeNumber(Integer.parseInt(largura.strip()));
+                    }
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+
+        // Fecha a linha do álbum aberto, se houver
+        void fecharAlbum() {
+            if (albumAtual == 0) {
+                return;
+            }
+            try {
+                json.writeEndArray();
+                json.writeEndObject();
+                json.writeEndObject();
+                json.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            albumAtual = 0;
+            linhasExportadas.increment();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.seletivo.musica.service;
+
+// Formatos aceitos pela importação em lote
+public enum FormatoImportacao {
+    NDJSON,
+    CSV
+}
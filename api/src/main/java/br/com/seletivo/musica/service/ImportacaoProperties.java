@@ -0,0 +1,40 @@
+package br.com.seletivo.musica.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "importacao")
+public class ImportacaoProperties {
+
+    // Linhas por transação; cada lote vira um insert em lote de artistas e outro de álbuns
+    private int batchSize = 5000;
+    // Erros de linha enviados na resposta; os seguintes só entram na contagem
+    private int maxErrosReportados = 1000;
+    // Artistas (nome -> id) lembrados entre lotes, para não consultar de novo os que se repetem
+    private int cacheArtistas = 10_000;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxErrosReportados() {
+        return maxErrosReportados;
+    }
+
+    public void setMaxErrosReportados(int maxErrosReportados) {
+        this.maxErrosReportados = maxErrosReportados;
+    }
+
+    public int getCacheArtistas() {
+        return cacheArtistas;
+    }
+
+    public void setCacheArtistas(int cacheArtistas) {
+        this.cacheArtistas = cacheArtistas;
+    }
+}
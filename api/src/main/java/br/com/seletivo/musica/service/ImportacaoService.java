@@ -0,0 +1,210 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.dto.ImportacaoErroDto;
+import br.com.seletivo.musica.dto.ImportacaoProgressoDto;
+import br.com.seletivo.musica.dto.LinhaImportacao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Importação em lote de artistas e álbuns, a partir de NDJSON ou CSV lido em streaming.
+ * As linhas são gravadas em lotes de importacao.batch-size, cada um na sua transação, então a memória usada não
+ * depende do tamanho do arquivo. Artistas são criados pelo nome (único) só se ainda não existirem; álbuns são sempre
+ * inseridos, em um insert em lote do JDBC (com reWriteBatchedInserts o driver junta as linhas em poucos comandos).
+ * Linhas inválidas são reportadas e puladas. Uma falha ao gravar interrompe a importação; os lotes anteriores ficam.
+ * Os álbuns importados não passam pelo outbox: seriam milhares de notificações de uma vez no WebSocket.
+ */
+@Service
+public class ImportacaoService {
+
+    public static final String PROGRESSO = "progresso";
+    public static final String RESUMO = "resumo";
+    public static final String FALHA = "falha";
+    public static final String ERRO = "erro";
+
+    private static final String BUSCAR_ARTISTAS = "select id, nome from artista where nome in (:nomes)";
+    // Outra importação (ou o cadastro) pode criar o mesmo nome entre a busca e o insert
+    private static final String CRIAR_ARTISTA = "insert into artista (nome, tipo) values (?, ?) on conflict (nome) do nothing";
+    private static final String CRIAR_ALBUM = "insert into album (artista_id, titulo, ano_lancamento) values (?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ImportacaoProperties properties;
+    private final Counter linhasImportadas;
+    private final Counter linhasRejeitadas;
+    private final Timer duracao;
+
+    public ImportacaoService(NamedParameterJdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             ImportacaoProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.linhasImportadas = meterRegistry.counter("importacao.linhas", "resultado", "importada");
+        this.linhasRejeitadas = meterRegistry.counter("importacao.linhas", "resultado", "rejeitada");
+        this.duracao = meterRegistry.timer("importacao.duracao");
+    }
+
+    /**
+     * Lê e grava a importação, enviando a "eventos" os erros de linha (ImportacaoErroDto) e o progresso após cada
+     * lote (ImportacaoProgressoDto). Retorna o resumo, que também é o último evento enviado.
+     */
+    public ImportacaoProgressoDto importar(Reader entrada, FormatoImportacao formato, Consumer<Object> eventos) {
+        Execucao execucao = new Execucao(eventos);
+        long inicio = System.nanoTime();
+        String tipo = RESUMO;
+        try {
+            LeitorImportacao leitor = new LeitorImportacao(entrada, formato, objectMapper);
+            List<LeitorImportacao.Leitura> lote = new ArrayList<>(properties.getBatchSize());
+            LeitorImportacao.Leitura leitura;
+            while ((leitura = leitor.ler()) != null) {
+                execucao.linhas++;
+                execucao.ultimaLinha = leitura.numero();
+                if (leitura.erro() != null) {
+                    execucao.rejeitar(leitura.numero(), leitura.erro());
+                } else {
+                    lote.add(leitura);
+                    if (lote.size() == properties.getBatchSize()) {
+                        execucao.gravar(lote);
+                        lote.clear();
+                    }
+                }
+            }
+            execucao.gravar(lote);
+        } catch (IOException | RuntimeException e) {
+            // Corpo interrompido, cabeçalho inválido ou lote recusado pelo banco: para aqui, com os lotes já gravados
+            e.printStackTrace();
+            tipo = FALHA;
+            eventos.accept(new ImportacaoErroDto(FALHA, execucao.ultimaLinha,
+                    "Importação interrompida: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+        }
+        long duracaoNanos = System.nanoTime() - inicio;
+        duracao.record(duracaoNanos, TimeUnit.NANOSECONDS);
+        ImportacaoProgressoDto resumo = execucao.progresso(tipo, TimeUnit.NANOSECONDS.toMillis(duracaoNanos));
+        eventos.accept(resumo);
+        return resumo;
+    }
+
+    // Estado de uma importação: contadores e os artistas já resolvidos
+    private class Execucao {
+
+        private final Consumer<Object> eventos;
+        // nome -> id, com descarte do menos usado: arquivos ordenados por artista quase sempre acertam aqui
+        private final Map<String, Long> artistas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> maisAntigo) {
+                return size() > properties.getCacheArtistas();
+            }
+        };
+        private long linhas;
+        private long ultimaLinha;
+        private long artistasCriados;
+        private long albunsCriados;
+        private long erros;
+
+        Execucao(Consumer<Object> eventos) {
+            this.eventos = eventos;
+        }
+
+        void rejeitar(long numero, String mensagem) {
+            erros++;
+            linhasRejeitadas.increment();
+            if (erros <= properties.getMaxErrosReportados()) {
+                eventos.accept(new ImportacaoErroDto(ERRO, numero, mensagem));
+            }
+        }
+
+        void gravar(List<LeitorImportacao.Leitura> lote) {
+            if (lote.isEmpty()) {
+                return;
+            }
+            Map<String, Long> ids = new HashMap<>();
+            int criados = transactionTemplate.execute(status -> gravarLote(lote, ids));
+            // Só depois do commit: um lote desfeito não deixa ids inexistentes no cache
+            artistas.putAll(ids);
+            artistasCriados += criados;
+            long albuns = lote.stream().filter(l -> l.linha().titulo() != null).count();
+            albunsCriados += albuns;
+            linhasImportadas.increment(lote.size());
+            eventos.accept(progresso(PROGRESSO, null));
+        }
+
+        private int gravarLote(List<LeitorImportacao.Leitura> lote, Map<String, Long> ids) {
+            // Um tipo por artista novo: vale o da primeira linha em que ele aparece no lote
+            Map<String, String> tipos = new LinkedHashMap<>();
+            for (LeitorImportacao.Leitura leitura : lote) {
+                tipos.putIfAbsent(leitura.linha().artista(), leitura.linha().tipo());
+            }
+            List<String> desconhecidos = new ArrayList<>();
+            for (String nome : tipos.keySet()) {
+                Long id = artistas.get(nome);
+                if (id != null) {
+                    ids.put(nome, id);
+                } else {
+                    desconhecidos.add(nome);
+                }
+            }
+
+            int criados = 0;
+            if (!desconhecidos.isEmpty()) {
+                buscarIds(desconhecidos, ids);
+                List<String> novos = desconhecidos.stream().filter(nome -> !ids.containsKey(nome)).toList();
+                if (!novos.isEmpty()) {
+                    jdbcTemplate.getJdbcOperations().batchUpdate(CRIAR_ARTISTA, novos, novos.size(), (ps, nome) -> {
+                        ps.setString(1, nome);
+                        ps.setString(2, tipos.get(nome));
+                    });
+                    buscarIds(novos, ids);
+                    criados = novos.size();
+                }
+            }
+
+            List<LinhaImportacao> albuns = lote.stream()
+                    .map(LeitorImportacao.Leitura::linha)
+                    .filter(linha -> linha.titulo() != null)
+                    .toList();
+            jdbcTemplate.getJdbcOperations().batchUpdate(CRIAR_ALBUM, albuns, albuns.size(), (ps, linha) -> {
+                ps.setLong(1, ids.get(linha.artista()));
+                ps.setString(2, linha.titulo());
+                if (linha.anoLancamento() == null) {
+                    ps.setNull(3, Types.INTEGER);
+                } else {
+                    ps.setInt(3, linha.anoLancamento());
+                }
+            });
+            return criados;
+        }
+
+        private void buscarIds(List<String> nomes, Map<String, Long> ids) {
+            jdbcTemplate.query(BUSCAR_ARTISTAS, Map.of("nomes", nomes),
+                    (RowCallbackHandler) rs -> ids.put(rs.getString("nome"), rs.getLong("id")));
+        }
+
+        ImportacaoProgressoDto progresso(String tipo, Long duracaoMs) {
+            return new ImportacaoProgressoDto(tipo, linhas, artistasCriados, albunsCriados, erros, duracaoMs);
+        }
+    }
+}
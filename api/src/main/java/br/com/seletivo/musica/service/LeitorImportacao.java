@@ -0,0 +1,184 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.dto.LinhaImportacao;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lê a importação linha a linha, sem carregar o corpo inteiro em memória.
+ * NDJSON: um objeto LinhaImportacao por linha. CSV: a primeira linha é o cabeçalho, com as colunas artista, tipo,
+ * titulo e anoLancamento em qualquer ordem (outras colunas são ignoradas); campos entre aspas seguem a RFC 4180.
+ * Linhas em branco são ignoradas. Cada leitura traz a linha já validada, ou a mensagem de erro.
+ */
+class LeitorImportacao {
+
+    // Mesmos limites das colunas em V1__create_tables.sql
+    static final int TAMANHO_NOME = 200;
+    static final int TAMANHO_TIPO = 20;
+    // Um campo entre aspas pode ter quebras de linha; aspas sem fechamento não devem consumir o resto do arquivo
+    private static final int TAMANHO_MAXIMO_REGISTRO = 8 * 1024;
+
+    record Leitura(long numero, LinhaImportacao linha, String erro) {
+    }
+
+    private final BufferedReader reader;
+    private final FormatoImportacao formato;
+    private final ObjectMapper objectMapper;
+    private long numeroLinha;
+    // Posição de cada coluna conhecida no CSV, lida do cabeçalho
+    private Map<String, Integer> colunas;
+
+    LeitorImportacao(Reader reader, FormatoImportacao formato, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        this.formato = formato;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Próxima linha do arquivo, ou null no fim. Um cabeçalho CSV inválido lança IllegalArgumentException,
+     * porque nenhuma linha poderia ser lida depois dele.
+     */
+    Leitura ler() throws IOException {
+        String texto;
+        do {
+            texto = reader.readLine();
+            if (texto == null) {
+                return null;
+            }
+            numeroLinha++;
+        } while (texto.isBlank());
+
+        if (formato == FormatoImportacao.CSV && colunas == null) {
+            colunas = lerCabecalho(campos(texto));
+            return ler();
+        }
+
+        long numero = numeroLinha;
+        LinhaImportacao linha;
+        try {
+            linha = formato == FormatoImportacao.CSV ? lerCsv(campos(texto))
+                    : objectMapper.readValue(texto, LinhaImportacao.class);
+        } catch (JsonProcessingException e) {
+            return new Leitura(numero, null, "JSON inválido: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return new Leitura(numero, null, e.getMessage());
+        }
+        if (linha == null) {
+            return new Leitura(numero, null, "JSON inválido: a linha deve ser um objeto");
+        }
+        linha = normalizar(linha);
+        String erro = validar(linha);
+        return erro == null ? new Leitura(numero, linha, null) : new Leitura(numero, null, erro);
+    }
+
+    private Map<String, Integer> lerCabecalho(List<String> cabecalho) {
+        Map<String, Integer> posicoes = new HashMap<>();
+        for (int i = 0; i < cabecalho.size(); i++) {
+            posicoes.putIfAbsent(cabecalho.get(i).strip(), i);
+        }
+        if (!posicoes.containsKey("artista")) {
+            throw new IllegalArgumentException("Cabeçalho CSV sem a coluna 'artista' (colunas: artista, tipo, titulo, anoLancamento)");
+        }
+        return posicoes;
+    }
+
+    private LinhaImportacao lerCsv(List<String> campos) {
+        String ano = coluna(campos, "anoLancamento");
+        Integer anoLancamento = null;
+        if (ano != null && !ano.isBlank()) {
+            try {
+                anoLancamento = Integer.valueOf(ano.strip());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("anoLancamento inválido: " + ano);
+            }
+        }
+        return new LinhaImportacao(coluna(campos, "artista"), coluna(campos, "tipo"), coluna(campos, "titulo"), anoLancamento);
+    }
+
+    private String coluna(List<String> campos, String nome) {
+        Integer posicao = colunas.get(nome);
+        return posicao == null || posicao >= campos.size() ? null : campos.get(posicao);
+    }
+
+    // Separa os campos de um registro CSV; se uma aspa ficar aberta no fim da linha, o registro continua na próxima
+    private List<String> campos(String texto) throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        int tamanho = texto.length();
+        int i = 0;
+        while (true) {
+            if (i == texto.length()) {
+                if (!entreAspas) {
+                    break;
+                }
+                String continuacao = reader.readLine();
+                if (continuacao == null) {
+                    throw new IllegalArgumentException("Campo entre aspas sem fechamento");
+                }
+                numeroLinha++;
+                tamanho += continuacao.length();
+                if (tamanho > TAMANHO_MAXIMO_REGISTRO) {
+                    throw new IllegalArgumentException("Campo entre aspas sem fechamento");
+                }
+                atual.append('\n');
+                texto = continuacao;
+                i = 0;
+                continue;
+            }
+            char c = texto.charAt(i++);
+            if (entreAspas) {
+                if (c != '"') {
+                    atual.append(c);
+                } else if (i < texto.length() && texto.charAt(i) == '"') {
+                    atual.append('"');
+                    i++;
+                } else {
+                    entreAspas = false;
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private static LinhaImportacao normalizar(LinhaImportacao linha) {
+        return new LinhaImportacao(vazioComoNulo(linha.artista()), vazioComoNulo(linha.tipo()),
+                vazioComoNulo(linha.titulo()), linha.anoLancamento());
+    }
+
+    private static String vazioComoNulo(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.strip();
+    }
+
+    private static String validar(LinhaImportacao linha) {
+        if (linha.artista() == null) {
+            return "artista é obrigatório";
+        }
+        if (linha.artista().length() > TAMANHO_NOME) {
+            return "artista excede " + TAMANHO_NOME + " caracteres";
+        }
+        if (linha.tipo() != null && linha.tipo().length() > TAMANHO_TIPO) {
+            return "tipo excede " + TAMANHO_TIPO + " caracteres";
+        }
+        if (linha.titulo() != null && linha.titulo().length() > TAMANHO_NOME) {
+            return "titulo excede " + TAMANHO_NOME + " caracteres";
+        }
+        return null;
+    }
+}
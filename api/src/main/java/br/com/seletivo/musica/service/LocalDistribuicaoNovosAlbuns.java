@@ -0,0 +1,26 @@
+package br.com.seletivo.musica.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Entrega o lote ao broker desta réplica. Só atende uma instância: com várias, o lote vai para quem o reservou
+ * no outbox, e os clientes conectados às outras réplicas não recebem a notificação (use outbox.fan-out=postgres).
+ */
+@Service
+@ConditionalOnProperty(name = "outbox.fan-out", havingValue = "local", matchIfMissing = true)
+public class LocalDistribuicaoNovosAlbuns implements DistribuicaoNovosAlbuns {
+
+    private final NotificacaoNovosAlbuns notificacaoNovosAlbuns;
+
+    public LocalDistribuicaoNovosAlbuns(NotificacaoNovosAlbuns notificacaoNovosAlbuns) {
+        this.notificacaoNovosAlbuns = notificacaoNovosAlbuns;
+    }
+
+    @Override
+    public void distribuir(List<NovoAlbumEvent> lote) {
+        notificacaoNovosAlbuns.publicar(lote);
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.dto.NovoAlbumDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Envia as notificações de novos álbuns em lotes, em vez de um frame por álbum. Os lotes vêm do relay do outbox
+ * (OutboxService), já depois do commit de quem criou os álbuns.
+ * Cada lote gera um frame por artista em /topic/artistas/{id}/novos-albuns (lista de NovoAlbumDto) e um único frame
+ * de texto em /topic/novos-albuns, o tópico que o frontend já escuta.
+ */
+@Service
+public class NotificacaoNovosAlbuns {
+
+    static final String TOPICO_GERAL = "/topic/novos-albuns";
+    static final String TOPICO_ARTISTA = "/topic/artistas/%d/novos-albuns";
+    // Títulos citados no resumo do tópico geral; o resto vira "e mais N"
+    private static final int TITULOS_NO_RESUMO = 3;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Timer tempoPublicacao;
+
+    public NotificacaoNovosAlbuns(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.tempoPublicacao = meterRegistry.timer("websocket.notificacoes.publicacao");
+    }
+
+    /**
+     * Entrega o lote ao broker. Uma falha é propagada para que o relay tente o lote de novo.
+     */
+    public void publicar(List<NovoAlbumEvent> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        tempoPublicacao.record(() -> {
+            Map<Long, List<NovoAlbumDto>> porArtista = lote.stream()
+                    .collect(Collectors.groupingBy(NovoAlbumEvent::artistaId, LinkedHashMap::new,
+                            Collectors.mapping(e -> new NovoAlbumDto(e.albumId(), e.titulo(), e.artistaId(), e.nomeArtista()),
+                                    Collectors.toList())));
+            porArtista.forEach((artistaId, albuns) ->
+                    messagingTemplate.convertAndSend(TOPICO_ARTISTA.formatted(artistaId), albuns));
+            messagingTemplate.convertAndSend(TOPICO_GERAL, resumo(lote));
+        });
+    }
+
+    static String resumo(List<NovoAlbumEvent> lote) {
+        if (lote.size() == 1) {
+            return "Novo álbum cadastrado: " + lote.get(0).titulo() + " de " + lote.get(0).nomeArtista();
+        }
+        String titulos = lote.stream()
+                .limit(TITULOS_NO_RESUMO)
+                .map(e -> e.titulo() + " de " + e.nomeArtista())
+                .collect(Collectors.joining(", "));
+        int restantes = lote.size() - TITULOS_NO_RESUMO;
+        return lote.size() + " novos álbuns cadastrados: " + titulos + (restantes > 0 ? " e mais " + restantes : "");
+    }
+}
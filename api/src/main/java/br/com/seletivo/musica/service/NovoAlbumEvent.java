@@ -0,0 +1,7 @@
+package br.com.seletivo.musica.service;
+
+/**
+ * Álbum criado, gravado no outbox pelo AlbumService e entregue como notificação WebSocket depois do commit.
+ */
+public record NovoAlbumEvent(Long albumId, String titulo, Long artistaId, String nomeArtista) {
+}
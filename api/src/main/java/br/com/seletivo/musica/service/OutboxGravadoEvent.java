@@ -0,0 +1,7 @@
+package br.com.seletivo.musica.service;
+
+/**
+ * Publicado pelo OutboxService ao gravar um evento, para que o relay seja acordado depois do commit.
+ */
+public record OutboxGravadoEvent() {
+}
@@ -0,0 +1,50 @@
+package br.com.seletivo.musica.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    // Espera após o primeiro commit antes de publicar, para juntar os eventos seguintes no mesmo lote
+    private long batchDelayMs = 1000;
+    // Eventos por transação do relay
+    private int batchSize = 500;
+    // Verificação periódica de eventos que ficaram para trás (ex: réplica que caiu antes de publicar)
+    private long pollIntervalMs = 10_000;
+    // "local" (lote entregue só aos clientes da réplica do relay) ou "postgres" (NOTIFY/LISTEN para todas as réplicas)
+    private String fanOut = "local";
+
+    public long getBatchDelayMs() {
+        return batchDelayMs;
+    }
+
+    public void setBatchDelayMs(long batchDelayMs) {
+        this.batchDelayMs = batchDelayMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public String getFanOut() {
+        return fanOut;
+    }
+
+    public void setFanOut(String fanOut) {
+        this.fanOut = fanOut;
+    }
+}
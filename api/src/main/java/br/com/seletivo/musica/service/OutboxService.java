@@ -0,0 +1,187 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.domain.OutboxEvento;
+import br.com.seletivo.musica.repository.OutboxEventoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Outbox transacional. registrar() grava o evento na transação de quem o origina. Assim um álbum desfeito
+ * nunca é anunciado, e a requisição não espera pela entrega.
+ * O relay roda em uma thread própria, depois do commit. Reserva lotes com "for update skip locked", para que
+ * réplicas não peguem as mesmas linhas, entrega cada lote e só então remove as linhas, na mesma transação.
+ * Uma falha (ou queda) antes do commit devolve o lote à tabela, então a entrega é "pelo menos uma vez".
+ * Como o broker STOMP é local a cada réplica, o lote chega só aos clientes da réplica que o reservou, a menos que
+ * outbox.fan-out=postgres (DistribuicaoNovosAlbuns) o repasse às demais.
+ */
+@Service
+public class OutboxService {
+
+    public static final String ALBUM_CRIADO = "ALBUM_CRIADO";
+
+    private final OutboxEventoRepository outboxRepository;
+    private final DistribuicaoNovosAlbuns distribuicao;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScheduledExecutorService relay;
+    private final Clock clock;
+
+    // Já há uma publicação agendada: novos commits entram no mesmo lote
+    private final AtomicBoolean agendado = new AtomicBoolean();
+    // Idade, em segundos, do evento pendente mais antigo
+    private final AtomicReference<Double> atraso = new AtomicReference<>(0.0);
+    private final Counter publicados;
+    private final Counter falhas;
+    private final Timer tempoAteEntrega;
+
+    @Autowired
+    public OutboxService(OutboxEventoRepository outboxRepository,
+                         DistribuicaoNovosAlbuns distribuicao,
+                         OutboxProperties properties,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry) {
+        // Uma thread basta: os lotes desta réplica são publicados em ordem, um de cada vez.
+        // Não é exposto como bean para não substituir o executor padrão do Spring.
+        this(outboxRepository, distribuicao, properties, objectMapper, transactionManager, eventPublisher,
+                Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbox-relay-")),
+                meterRegistry, Clock.systemUTC());
+    }
+
+    OutboxService(OutboxEventoRepository outboxRepository,
+                  DistribuicaoNovosAlbuns distribuicao,
+                  OutboxProperties properties,
+                  ObjectMapper objectMapper,
+                  PlatformTransactionManager transactionManager,
+                  ApplicationEventPublisher eventPublisher,
+                  ScheduledExecutorService relay,
+                  MeterRegistry meterRegistry,
+                  Clock clock) {
+        this.outboxRepository = outboxRepository;
+        this.distribuicao = distribuicao;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.relay = relay;
+        this.clock = clock;
+        this.publicados = meterRegistry.counter("outbox.publicados");
+        this.falhas = meterRegistry.counter("outbox.falhas");
+        this.tempoAteEntrega = meterRegistry.timer("outbox.tempo-ate-entrega");
+        meterRegistry.gauge("outbox.atraso", atraso, AtomicReference::get);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relay.shutdown();
+    }
+
+    /**
+     * Grava o evento na transação atual; sem transação falha, porque o evento se perderia se a origem fosse desfeita.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(String tipo, Object payload) {
+        OutboxEvento evento = new OutboxEvento();
+        evento.setTipo(tipo);
+        try {
+            evento.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar evento " + tipo, e);
+        }
+        evento.setDataCriacao(Instant.now(clock));
+        outboxRepository.save(evento);
+        eventPublisher.publishEvent(new OutboxGravadoEvent());
+    }
+
+    // Depois do commit de quem gravou o evento
+    @TransactionalEventListener
+    public void aoGravar(OutboxGravadoEvent evento) {
+        agendar();
+    }
+
+    // Eventos de réplicas que caíram antes de publicar, ou de lotes que falharam
+    @Scheduled(initialDelayString = "${outbox.poll-interval-ms:10000}", fixedDelayString = "${outbox.poll-interval-ms:10000}")
+    public void verificarPendentes() {
+        agendar();
+    }
+
+    private void agendar() {
+        if (agendado.compareAndSet(false, true)) {
+            relay.schedule(this::drenar, properties.getBatchDelayMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void drenar() {
+        // Commits a partir daqui agendam a próxima publicação
+        agendado.set(false);
+        try {
+            Integer publicadosNoLote;
+            do {
+                publicadosNoLote = transactionTemplate.execute(status -> publicarLote());
+            } while (publicadosNoLote != null && publicadosNoLote == properties.getBatchSize());
+        } catch (Exception e) {
+            // O lote continua na tabela e é tentado de novo na próxima verificação
+            e.printStackTrace();
+            falhas.increment();
+        } finally {
+            Instant maisAntigo = outboxRepository.buscarMaisAntigo().orElse(null);
+            atraso.set(maisAntigo == null ? 0.0 : Duration.between(maisAntigo, Instant.now(clock)).toMillis() / 1000.0);
+        }
+    }
+
+    private int publicarLote() {
+        List<OutboxEvento> lote = outboxRepository.reservarLote(properties.getBatchSize());
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        List<NovoAlbumEvent> albuns = new ArrayList<>();
+        for (OutboxEvento evento : lote) {
+            // Eventos que não podem ser entregues são removidos com o lote, para não travar a fila
+            if (!ALBUM_CRIADO.equals(evento.getTipo())) {
+                System.err.println("Evento de outbox " + evento.getId() + " com tipo desconhecido descartado: " + evento.getTipo());
+                continue;
+            }
+            try {
+                albuns.add(objectMapper.readValue(evento.getPayload(), NovoAlbumEvent.class));
+            } catch (JsonProcessingException e) {
+                System.err.println("Evento de outbox " + evento.getId() + " inválido descartado: " + e.getMessage());
+            }
+        }
+        // Se a entrega falhar, a exceção desfaz a transação e o lote volta a ficar pendente
+        distribuicao.distribuir(albuns);
+        outboxRepository.deleteAllInBatch(lote);
+
+        Instant agora = Instant.now(clock);
+        lote.forEach(evento -> tempoAteEntrega.record(Duration.between(evento.getDataCriacao(), agora)));
+        publicados.increment(lote.size());
+        return lote.size();
+    }
+}
@@ -0,0 +1,17 @@
+package br.com.seletivo.musica.service;
+
+/**
+ * Valor enviado pelo cliente que não conseguimos interpretar: cursor de paginação ("after") malformado
+ * ou If-Match que não é um ETag nosso. Vira 400 no GlobalExceptionHandler; outras IllegalArgumentException,
+ * que indicam erro de programação ou de configuração, continuam como erro interno.
+ */
+public class ParametroInvalidoException extends RuntimeException {
+
+    public ParametroInvalidoException(String message) {
+        super(message);
+    }
+
+    public ParametroInvalidoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,179 @@
+package br.com.seletivo.musica.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Distribui os lotes para todas as réplicas com NOTIFY/LISTEN do PostgreSQL. O relay que reservou o lote faz o
+ * NOTIFY na própria transação, então a notificação só sai no commit, junto com a remoção do outbox. Cada réplica
+ * (inclusive a do relay) mantém uma conexão em LISTEN e entrega o que recebe ao próprio broker.
+ * Uma réplica sem a conexão de LISTEN no momento do commit perde o lote, como um cliente desconectado perderia.
+ */
+@Service
+@ConditionalOnProperty(name = "outbox.fan-out", havingValue = "postgres")
+public class PostgresDistribuicaoNovosAlbuns implements DistribuicaoNovosAlbuns {
+
+    static final String CANAL = "novos_albuns";
+    // O payload do NOTIFY tem limite de 8000 bytes; lotes maiores vão em várias notificações
+    static final int MAXIMO_BYTES = 7_500;
+    private static final int ESPERA_MS = 1_000;
+    private static final long PAUSA_APOS_FALHA_MS = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final NotificacaoNovosAlbuns notificacaoNovosAlbuns;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService ouvinte;
+    private final Counter recebidas;
+    private final Counter falhas;
+
+    private volatile boolean ativo = true;
+
+    @Autowired
+    public PostgresDistribuicaoNovosAlbuns(JdbcTemplate jdbcTemplate,
+                                           DataSource dataSource,
+                                           NotificacaoNovosAlbuns notificacaoNovosAlbuns,
+                                           ObjectMapper objectMapper,
+                                           MeterRegistry meterRegistry) {
+        // Uma thread presa na conexão de LISTEN; não é exposta como bean para não substituir o executor padrão
+        this(jdbcTemplate, dataSource, notificacaoNovosAlbuns, objectMapper,
+                Executors.newSingleThreadExecutor(new CustomizableThreadFactory("outbox-listen-")), meterRegistry);
+    }
+
+    PostgresDistribuicaoNovosAlbuns(JdbcTemplate jdbcTemplate,
+                                    DataSource dataSource,
+                                    NotificacaoNovosAlbuns notificacaoNovosAlbuns,
+                                    ObjectMapper objectMapper,
+                                    ExecutorService ouvinte,
+                                    MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.notificacaoNovosAlbuns = notificacaoNovosAlbuns;
+        this.objectMapper = objectMapper;
+        this.ouvinte = ouvinte;
+        this.recebidas = meterRegistry.counter("outbox.fan-out.recebidas");
+        this.falhas = meterRegistry.counter("outbox.fan-out.falhas");
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        ouvinte.execute(this::ouvir);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ativo = false;
+        ouvinte.shutdownNow();
+    }
+
+    @Override
+    public void distribuir(List<NovoAlbumEvent> lote) {
+        for (String payload : dividir(lote)) {
+            jdbcTemplate.queryForList("select pg_notify(?, ?)", CANAL, payload);
+        }
+    }
+
+    // Arrays JSON de até MAXIMO_BYTES; um evento sozinho maior que isso (títulos enormes) falha no NOTIFY
+    List<String> dividir(List<NovoAlbumEvent> lote) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        int bytes = 0;
+        for (NovoAlbumEvent evento : lote) {
+            String json = escrever(evento);
+            int tamanho = json.getBytes(StandardCharsets.UTF_8).length;
+            if (atual.length() > 0 && bytes + tamanho + 2 > MAXIMO_BYTES) {
+                payloads.add(atual.append(']').toString());
+                atual.setLength(0);
+                bytes = 0;
+            }
+            atual.append(atual.length() == 0 ? '[' : ',').append(json);
+            bytes += tamanho + 1;
+        }
+        if (atual.length() > 0) {
+            payloads.add(atual.append(']').toString());
+        }
+        return payloads;
+    }
+
+    private String escrever(NovoAlbumEvent evento) {
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erro ao serializar evento de novo álbum", e);
+        }
+    }
+
+    private void ouvir() {
+        while (ativo) {
+            try (Connection conexao = dataSource.getConnection()) {
+                conexao.setAutoCommit(true);
+                try (Statement comando = conexao.createStatement()) {
+                    comando.execute("listen " + CANAL);
+                }
+                try {
+                    PGConnection pg = conexao.unwrap(PGConnection.class);
+                    while (ativo) {
+                        PGNotification[] notificacoes = pg.getNotifications(ESPERA_MS);
+                        if (notificacoes != null) {
+                            for (PGNotification notificacao : notificacoes) {
+                                entregar(notificacao.getParameter());
+                            }
+                        }
+                    }
+                } finally {
+                    // A conexão volta ao pool; sem isso ela continuaria acumulando notificações
+                    try (Statement comando = conexao.createStatement()) {
+                        comando.execute("unlisten *");
+                    }
+                }
+            } catch (SQLException e) {
+                if (!ativo) {
+                    return;
+                }
+                e.printStackTrace();
+                falhas.increment();
+                try {
+                    Thread.sleep(PAUSA_APOS_FALHA_MS);
+                } catch (InterruptedException interrompido) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Uma falha na entrega local não afeta as outras réplicas nem o outbox, que já foi commitado
+    private void entregar(String payload) {
+        try {
+            List<NovoAlbumEvent> lote = objectMapper.readValue(payload, new TypeReference<List<NovoAlbumEvent>>() {
+            });
+            notificacaoNovosAlbuns.publicar(lote);
+            recebidas.increment(lote.size());
+        } catch (Exception e) {
+            e.printStackTrace();
+            falhas.increment();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.seletivo.musica.service;
+
+/**
+ * Publicado pela sincronização quando regionais foram criadas ou inativadas.
+ */
+public record RegionaisAlteradasEvent() {
+}
@@ -0,0 +1,86 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.repository.RegionalRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lista de regionais ativas já serializada em JSON, com o ETag do conteúdo.
+ * Só muda quando uma sincronização altera a tabela, então a listagem não consulta o banco nem serializa
+ * entidades a cada requisição. O snapshot é imutável e trocado de uma vez: leitores nunca veem um estado parcial.
+ */
+@Component
+public class RegionaisSnapshot {
+
+    private final RegionalRepository regionalRepository;
+    private final ObjectMapper objectMapper;
+
+    private volatile Snapshot atual;
+    // Serializa as recargas. ReentrantLock em vez de synchronized porque a recarga consulta o banco, e no modo
+    // de threads virtuais um synchronized prenderia a thread da plataforma durante a consulta.
+    private final ReentrantLock trava = new ReentrantLock();
+
+    public RegionaisSnapshot(RegionalRepository regionalRepository, ObjectMapper objectMapper) {
+        this.regionalRepository = regionalRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * JSON e ETag forte das regionais ativas. O array retornado é compartilhado e não deve ser alterado.
+     */
+    public record Snapshot(byte[] json, String etag) {
+    }
+
+    public Snapshot obter() {
+        Snapshot snapshot = atual;
+        return snapshot != null ? snapshot : recarregar();
+    }
+
+    // Depois do commit da sincronização desta réplica
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarRegionais(RegionaisAlteradasEvent evento) {
+        recarregar();
+    }
+
+    // Alterações feitas por outra réplica chegam por aqui
+    @Scheduled(fixedDelayString = "${regionais.snapshot-refresh-ms:60000}")
+    public void recarregarPeriodicamente() {
+        recarregar();
+    }
+
+    Snapshot recarregar() {
+        trava.lock();
+        try {
+            byte[] json;
+            try {
+                json = objectMapper.writeValueAsBytes(regionalRepository.findByAtivoTrueOrderByIdAsc());
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Erro ao serializar regionais", e);
+            }
+            String etag = "\"" + sha256(json) + "\"";
+            // Conteúdo igual: mantém a instância atual
+            if (atual == null || !atual.etag().equals(etag)) {
+                atual = new Snapshot(json, etag);
+            }
+            return atual;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private static String sha256(byte[] conteudo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
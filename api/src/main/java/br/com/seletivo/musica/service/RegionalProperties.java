@@ -0,0 +1,87 @@
+package br.com.seletivo.musica.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "regionais")
+public class RegionalProperties {
+
+    // Endpoint da API externa de regionais (nos testes, um servidor local faz o papel dela)
+    private String url = "https://integrador-argus-api.geia.vip/v1/regionais";
+    private int connectTimeoutMs = 5_000;
+    private int readTimeoutMs = 30_000;
+    // Sincronização agendada. Roda em todas as réplicas, mas um bloqueio no PostgreSQL garante que só uma execute.
+    private boolean syncEnabled = true;
+    private long syncIntervalMs = 3_600_000;
+    // Execuções pendentes há mais tempo que isso são consideradas abandonadas (ex: réplica reiniciada no meio)
+    private int jobTimeoutMinutes = 10;
+    // Execuções solicitadas há mais tempo que isso são removidas da tabela regional_sincronizacao_execucao
+    private int jobRetentionDays = 30;
+    // Recarga da lista de regionais servida pela API, para ver sincronizações feitas por outras réplicas
+    private long snapshotRefreshMs = 60_000;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public int getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public void setReadTimeoutMs(int readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public boolean isSyncEnabled() {
+        return syncEnabled;
+    }
+
+    public void setSyncEnabled(boolean syncEnabled) {
+        this.syncEnabled = syncEnabled;
+    }
+
+    public long getSyncIntervalMs() {
+        return syncIntervalMs;
+    }
+
+    public void setSyncIntervalMs(long syncIntervalMs) {
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public int getJobTimeoutMinutes() {
+        return jobTimeoutMinutes;
+    }
+
+    public void setJobTimeoutMinutes(int jobTimeoutMinutes) {
+        this.jobTimeoutMinutes = jobTimeoutMinutes;
+    }
+
+    public int getJobRetentionDays() {
+        return jobRetentionDays;
+    }
+
+    public void setJobRetentionDays(int jobRetentionDays) {
+        this.jobRetentionDays = jobRetentionDays;
+    }
+
+    public long getSnapshotRefreshMs() {
+        return snapshotRefreshMs;
+    }
+
+    public void setSnapshotRefreshMs(long snapshotRefreshMs) {
+        this.snapshotRefreshMs = snapshotRefreshMs;
+    }
+}
@@ -1,15 +1,41 @@
 package br.com.seletivo.musica.service;
 
 import br.com.seletivo.musica.domain.Regional;
+import br.com.seletivo.musica.domain.RegionalSincronizacao;
+import br.com.seletivo.musica.dto.SincronizacaoRegionalDto;
 import br.com.seletivo.musica.repository.RegionalRepository;
+import br.com.seletivo.musica.repository.RegionalSincronizacaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -20,12 +46,62 @@ import java.util.stream.Collectors;
 @Service
 public class RegionalService {
 
+    // Chave do bloqueio consultivo que impede duas réplicas de sincronizarem ao mesmo tempo
+    static final long CHAVE_BLOQUEIO = 7_001_001L;
+
+    // Limite de ids por UPDATE, bem abaixo do máximo de parâmetros por comando do PostgreSQL
+    private static final int TAMANHO_LOTE_INATIVACAO = 1000;
+
     private final RegionalRepository regionalRepository;
+    private final RegionalSincronizacaoRepository sincronizacaoRepository;
+    private final RegionalProperties properties;
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter linhasCriadas;
+    private final Counter linhasInativadas;
+    // Linhas gravadas por segundo na última sincronização
+    private final AtomicReference<Double> vazao = new AtomicReference<>(0.0);
 
-    public RegionalService(RegionalRepository regionalRepository) {
+    @Autowired
+    public RegionalService(RegionalRepository regionalRepository,
+                           RegionalSincronizacaoRepository sincronizacaoRepository,
+                           RegionalProperties properties,
+                           RestTemplateBuilder restTemplateBuilder,
+                           ObjectMapper objectMapper,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this(regionalRepository, sincronizacaoRepository, properties,
+                restTemplateBuilder
+                        .setConnectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                        .setReadTimeout(Duration.ofMillis(properties.getReadTimeoutMs()))
+                        .build(),
+                objectMapper, eventPublisher, transactionManager, meterRegistry);
+    }
+
+    RegionalService(RegionalRepository regionalRepository,
+                    RegionalSincronizacaoRepository sincronizacaoRepository,
+                    RegionalProperties properties,
+                    RestTemplate restTemplate,
+                    ObjectMapper objectMapper,
+                    ApplicationEventPublisher eventPublisher,
+                    PlatformTransactionManager transactionManager,
+                    MeterRegistry meterRegistry) {
         this.regionalRepository = regionalRepository;
-        this.restTemplate = new RestTemplate();
+        this.sincronizacaoRepository = sincronizacaoRepository;
+        this.properties = properties;
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.linhasCriadas = meterRegistry.counter("regionais.sincronizacao.linhas", "operacao", "criadas");
+        this.linhasInativadas = meterRegistry.counter("regionais.sincronizacao.linhas", "operacao", "inativadas");
+        meterRegistry.gauge("regionais.sincronizacao.linhas-por-segundo", vazao, AtomicReference::get);
     }
 
     /**
@@ -44,13 +120,110 @@ public class RegionalService {
      * 1. Se existe na API e não no banco -> Cria.
      * 2. Se existe em ambos mas nome mudou -> Inativa antigo e cria novo (histórico).
      * 3. Se existe no banco e não na API -> Inativa.
+     *
+     * A requisição é condicional (If-None-Match/If-Modified-Since da execução anterior). Se a API responder 304,
+     * ou devolver um conteúdo com o mesmo hash do último aplicado, a comparação com o banco é pulada.
+     *
+     * A chamada à API roda fora de transação, para não prender uma conexão do pool nem o bloqueio consultivo do
+     * PostgreSQL durante a leitura (até read-timeout-ms). O bloqueio só é tomado nas duas transações curtas:
+     * a que lê os validadores e a que aplica a resposta.
+     *
+     * Retorna vazio se outra réplica estiver aplicando uma sincronização (nesse caso a API nem é chamada),
+     * ou se outra réplica concluiu uma verificação enquanto esta esperava a API: a resposta dela é tão ou mais
+     * recente, e aplicar esta poderia desfazer alterações.
+     */
+    public Optional<SincronizacaoRegionalDto> sincronizar() {
+        long inicio = System.nanoTime();
+        String url = properties.getUrl();
+        RegionalSincronizacao anterior = transactionTemplate.execute(status ->
+                sincronizacaoRepository.tentarBloquear(CHAVE_BLOQUEIO) ? buscarEstado(url) : null);
+        if (anterior == null) {
+            return Optional.empty();
+        }
+
+        // 1. Buscar dados remotos (API externa), só se mudaram desde a última execução
+        HttpHeaders cabecalhos = new HttpHeaders();
+        if (anterior.getEtag() != null) {
+            cabecalhos.setIfNoneMatch(anterior.getEtag());
+        }
+        if (anterior.getLastModified() != null) {
+            cabecalhos.set(HttpHeaders.IF_MODIFIED_SINCE, anterior.getLastModified());
+        }
+        ResponseEntity<byte[]> resposta = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(cabecalhos), byte[].class);
+
+        return transactionTemplate.execute(status -> {
+            if (!sincronizacaoRepository.tentarBloquear(CHAVE_BLOQUEIO)) {
+                return Optional.empty();
+            }
+            RegionalSincronizacao estado = buscarEstado(url);
+            if (!Objects.equals(estado.getDataVerificacao(), anterior.getDataVerificacao())) {
+                return Optional.empty();
+            }
+            return Optional.of(aplicarResposta(estado, resposta, inicio));
+        });
+    }
+
+    private RegionalSincronizacao buscarEstado(String url) {
+        return sincronizacaoRepository.findById(url).orElseGet(() -> {
+            RegionalSincronizacao novo = new RegionalSincronizacao();
+            novo.setOrigem(url);
+            return novo;
+        });
+    }
+
+    private SincronizacaoRegionalDto aplicarResposta(RegionalSincronizacao estado, ResponseEntity<byte[]> resposta, long inicio) {
+        Alteracoes alteracoes = null;
+        if (resposta.getStatusCode() != HttpStatus.NOT_MODIFIED) {
+            byte[] corpo = resposta.getBody() != null ? resposta.getBody() : new byte[0];
+            String hash = sha256(corpo);
+            if (!hash.equals(estado.getHashSha256())) {
+                alteracoes = aplicar(ler(corpo));
+                estado.setHashSha256(hash);
+                estado.setDataAlteracao(Instant.now());
+            }
+            // Validadores novos mesmo com o conteúdo igual: a próxima execução pode receber 304
+            estado.setEtag(resposta.getHeaders().getETag());
+            estado.setLastModified(resposta.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        int criadas = alteracoes != null ? alteracoes.criadas() : 0;
+        int inativadas = alteracoes != null ? alteracoes.inativadas() : 0;
+        estado.setDataVerificacao(Instant.now());
+        estado.setDuracaoMs(TimeUnit.NANOSECONDS.toMillis(nanos));
+        estado.setLinhasAlteradas(criadas + inativadas);
+        sincronizacaoRepository.save(estado);
+
+        meterRegistry.timer("regionais.sincronizacao.duracao", "resultado", alteracoes != null ? "alterada" : "inalterada")
+                .record(nanos, TimeUnit.NANOSECONDS);
+        return new SincronizacaoRegionalDto(alteracoes != null, criadas, inativadas, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private RegionalDto[] ler(byte[] corpo) {
+        if (corpo.length == 0) {
+            return new RegionalDto[0];
+        }
+        try {
+            return objectMapper.readValue(corpo, RegionalDto[].class);
+        } catch (IOException e) {
+            throw new RuntimeException("Resposta inválida da API de regionais", e);
+        }
+    }
+
+    private static String sha256(byte[] conteudo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compara a lista remota com as regionais ativas e grava as diferenças em lote:
+     * um UPDATE para todas as inativações e os inserts em lotes JDBC (hibernate.jdbc.batch_size).
      */
-    @Transactional
-    public void sincronizar() {
-        // 1. Buscar dados remotos (API externa)
-        // URL hardcoded para o teste, idealmente viria de properties
-        RegionalDto[] remotosArray = restTemplate.getForObject("https://integrador-argus-api.geia.vip/v1/regionais", RegionalDto[].class);
-        if (remotosArray == null) remotosArray = new RegionalDto[0];
+    Alteracoes aplicar(RegionalDto[] remotosArray) {
+        long inicio = System.nanoTime();
 
         // Transforma lista remota em Mapa para acesso rápido (O(1)) por ID
         Map<Integer, RegionalDto> remotosMap = Arrays.stream(remotosArray)
@@ -62,19 +235,23 @@ public class RegionalService {
         Map<Integer, Regional> locaisMap = locaisAtivos.stream()
                 .collect(Collectors.toMap(Regional::getCodigoExterno, Function.identity()));
 
+        Instant agora = Instant.now();
+        List<Regional> novos = new ArrayList<>();
+        List<Long> inativar = new ArrayList<>();
+
         // 3. Processar: Novos e Alterados (Itera sobre o que veio da API)
         for (RegionalDto remoto : remotosMap.values()) {
             Regional local = locaisMap.get(remoto.getId());
 
             if (local == null) {
                 // Novo no endpoint (não existe localmente) -> Inserir
-                criarRegional(remoto);
+                novos.add(criarRegional(remoto, agora));
             } else {
                 // Já existe localmente, verificar se houve mudança
                 if (!local.getNome().equals(remoto.getNome())) {
                     // Mudou o nome -> Inativar o registro anterior e criar um novo
-                    inativarRegional(local);
-                    criarRegional(remoto);
+                    inativar.add(local.getId());
+                    novos.add(criarRegional(remoto, agora));
                 }
                 // Remover do mapa local para marcar como "processado"
                 // O que sobrar no mapa local significa que não veio na API (foi removido lá)
@@ -85,29 +262,46 @@ public class RegionalService {
         // 4. Processar: Removidos (sobraram no mapa local)
         for (Regional local : locaisMap.values()) {
             // Se sobrou aqui, é porque não existe mais na API externa
-            inativarRegional(local);
+            inativar.add(local.getId());
+        }
+
+        // Inativa antes de inserir: o UPDATE limpa o contexto de persistência
+        for (int i = 0; i < inativar.size(); i += TAMANHO_LOTE_INATIVACAO) {
+            regionalRepository.inativar(inativar.subList(i, Math.min(i + TAMANHO_LOTE_INATIVACAO, inativar.size())), agora);
+        }
+        regionalRepository.saveAll(novos);
+        // Grava os inserts aqui, e não no commit, para que a duração medida inclua a escrita
+        regionalRepository.flush();
+        if (!novos.isEmpty() || !inativar.isEmpty()) {
+            eventPublisher.publishEvent(new RegionaisAlteradasEvent());
+        }
+
+        registrarMetricas(novos.size(), inativar.size(), System.nanoTime() - inicio);
+        return new Alteracoes(novos.size(), inativar.size());
+    }
+
+    private void registrarMetricas(int criadas, int inativadas, long nanos) {
+        linhasCriadas.increment(criadas);
+        linhasInativadas.increment(inativadas);
+        int linhas = criadas + inativadas;
+        if (linhas > 0) {
+            vazao.set(linhas / (nanos / 1_000_000_000.0));
         }
     }
 
     /**
-     * Cria uma nova regional ativa.
+     * Cria uma nova regional ativa (gravada em lote pelo chamador).
      */
-    private void criarRegional(RegionalDto dto) {
+    private Regional criarRegional(RegionalDto dto, Instant agora) {
         Regional novo = new Regional();
         novo.setCodigoExterno(dto.getId());
         novo.setNome(dto.getNome());
         novo.setAtivo(true);
-        novo.setDataCriacao(Instant.now());
-        regionalRepository.save(novo);
+        novo.setDataCriacao(agora);
+        return novo;
     }
 
-    /**
-     * Inativa uma regional existente (soft delete).
-     */
-    private void inativarRegional(Regional regional) {
-        regional.setAtivo(false);
-        regional.setDataInativacao(Instant.now());
-        regionalRepository.save(regional);
+    record Alteracoes(int criadas, int inativadas) {
     }
 
     /**
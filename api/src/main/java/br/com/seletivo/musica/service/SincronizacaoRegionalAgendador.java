@@ -0,0 +1,192 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.config.ThreadsVirtuais;
+import br.com.seletivo.musica.domain.RegionalSincronizacaoExecucao;
+import br.com.seletivo.musica.domain.RegionalSincronizacaoExecucao.Status;
+import br.com.seletivo.musica.dto.SincronizacaoRegionalDto;
+import br.com.seletivo.musica.dto.SincronizacaoRegionalExecucaoDto;
+import br.com.seletivo.musica.repository.RegionalSincronizacaoExecucaoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispara a sincronização de regionais em segundo plano, manualmente ou no intervalo configurado.
+ * Pedidos feitos enquanto uma execução está em andamento (nesta ou em outra réplica) recebem o id dela,
+ * em vez de iniciar outra; o bloqueio consultivo em RegionalService garante que só uma réplica sincronize por vez.
+ */
+@Service
+public class SincronizacaoRegionalAgendador {
+
+    private static final String GATILHO_AGENDADO = "AGENDADA";
+    private static final List<Status> EM_ANDAMENTO = List.of(Status.PENDENTE, Status.EXECUTANDO);
+
+    private final RegionalService regionalService;
+    private final RegionalSincronizacaoExecucaoRepository execucaoRepository;
+    private final RegionalProperties properties;
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+
+    // Protege emAndamento. Um ReentrantLock em vez de synchronized: disparar() consulta o banco com ele seguro,
+    // e no modo de threads virtuais um synchronized prenderia a thread da plataforma durante a consulta.
+    private final ReentrantLock trava = new ReentrantLock();
+    // Execução desta réplica ainda não terminada
+    private UUID emAndamento;
+
+    @Autowired
+    public SincronizacaoRegionalAgendador(RegionalService regionalService,
+                                          RegionalSincronizacaoExecucaoRepository execucaoRepository,
+                                          RegionalProperties properties,
+                                          MeterRegistry meterRegistry,
+                                          Environment environment) {
+        // Uma thread basta: as execuções desta réplica nunca se sobrepõem.
+        // Não é exposto como bean para não substituir o executor padrão do Spring.
+        this(regionalService, execucaoRepository, properties,
+                Executors.newSingleThreadExecutor(ThreadsVirtuais.fabrica(environment, "regionais-sync-")),
+                meterRegistry);
+    }
+
+    SincronizacaoRegionalAgendador(RegionalService regionalService,
+                                   RegionalSincronizacaoExecucaoRepository execucaoRepository,
+                                   RegionalProperties properties,
+                                   ExecutorService executor,
+                                   MeterRegistry meterRegistry) {
+        this.regionalService = regionalService;
+        this.execucaoRepository = execucaoRepository;
+        this.properties = properties;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Scheduled(initialDelayString = "${regionais.sync-interval-ms:3600000}",
+            fixedDelayString = "${regionais.sync-interval-ms:3600000}")
+    public void sincronizarPeriodicamente() {
+        if (properties.isSyncEnabled()) {
+            disparar(GATILHO_AGENDADO);
+        }
+    }
+
+    // Todas as réplicas rodam a limpeza; o DELETE é idempotente
+    @Scheduled(initialDelayString = "${regionais.sync-interval-ms:3600000}",
+            fixedDelayString = "${regionais.sync-interval-ms:3600000}")
+    public void removerExecucoesAntigas() {
+        try {
+            execucaoRepository.removerSolicitadasAntes(
+                    Instant.now().minus(Duration.ofDays(properties.getJobRetentionDays())));
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Inicia uma sincronização em segundo plano, ou devolve a que já está em andamento.
+     */
+    public SincronizacaoRegionalExecucaoDto disparar(String gatilho) {
+        trava.lock();
+        try {
+            if (emAndamento != null) {
+                Optional<RegionalSincronizacaoExecucao> local = execucaoRepository.findById(emAndamento);
+                if (local.isPresent()) {
+                    return toDto(local.get());
+                }
+            }
+            Instant desde = Instant.now().minus(Duration.ofMinutes(properties.getJobTimeoutMinutes()));
+            Optional<RegionalSincronizacaoExecucao> outraReplica = execucaoRepository
+                    .findFirstByStatusInAndDataSolicitacaoAfterOrderByDataSolicitacaoDesc(EM_ANDAMENTO, desde);
+            if (outraReplica.isPresent()) {
+                return toDto(outraReplica.get());
+            }
+
+            RegionalSincronizacaoExecucao execucao = new RegionalSincronizacaoExecucao();
+            execucao.setId(UUID.randomUUID());
+            execucao.setStatus(Status.PENDENTE);
+            execucao.setGatilho(gatilho);
+            execucao.setDataSolicitacao(Instant.now());
+            execucaoRepository.save(execucao);
+            emAndamento = execucao.getId();
+            executor.execute(() -> executar(execucao.getId()));
+            return toDto(execucao);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public SincronizacaoRegionalExecucaoDto buscar(UUID id) {
+        return toDto(execucaoRepository.findById(id).orElseThrow());
+    }
+
+    private void executar(UUID id) {
+        try {
+            registrarExecucao(id);
+        } finally {
+            trava.lock();
+            try {
+                emAndamento = null;
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+
+    private void registrarExecucao(UUID id) {
+        RegionalSincronizacaoExecucao execucao = execucaoRepository.findById(id).orElseThrow();
+        try {
+            execucao.setStatus(Status.EXECUTANDO);
+            execucao.setDataInicio(Instant.now());
+            execucao = execucaoRepository.save(execucao);
+
+            Optional<SincronizacaoRegionalDto> resultado = regionalService.sincronizar();
+            if (resultado.isPresent()) {
+                execucao.setStatus(Status.CONCLUIDA);
+                execucao.setAlterada(resultado.get().alterada());
+                execucao.setCriadas(resultado.get().criadas());
+                execucao.setInativadas(resultado.get().inativadas());
+                execucao.setDuracaoMs(resultado.get().duracaoMs());
+            } else {
+                execucao.setStatus(Status.IGNORADA);
+                execucao.setErro("Sincronização em andamento em outra réplica");
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            execucao.setStatus(Status.FALHOU);
+            String mensagem = String.valueOf(e.getMessage());
+            execucao.setErro(mensagem.length() > 1000 ? mensagem.substring(0, 1000) : mensagem);
+        } finally {
+            execucao.setDataFim(Instant.now());
+            // Uma execução agendada ignorada não interessa a ninguém: sem isso, cada réplica gravaria uma linha por intervalo.
+            // Pedidos manuais ficam, porque quem pediu consulta o status pelo id.
+            if (execucao.getStatus() == Status.IGNORADA && GATILHO_AGENDADO.equals(execucao.getGatilho())) {
+                execucaoRepository.delete(execucao);
+            } else {
+                execucaoRepository.save(execucao);
+            }
+            meterRegistry.counter("regionais.sincronizacao.execucoes", "status", execucao.getStatus().name()).increment();
+        }
+    }
+
+    private static SincronizacaoRegionalExecucaoDto toDto(RegionalSincronizacaoExecucao execucao) {
+        SincronizacaoRegionalDto resultado = execucao.getStatus() == Status.CONCLUIDA
+                ? new SincronizacaoRegionalDto(execucao.getAlterada(), execucao.getCriadas(),
+                        execucao.getInativadas(), execucao.getDuracaoMs())
+                : null;
+        return new SincronizacaoRegionalExecucaoDto(execucao.getId(), execucao.getStatus().name(), execucao.getGatilho(),
+                execucao.getDataSolicitacao(), execucao.getDataInicio(), execucao.getDataFim(), resultado, execucao.getErro());
+    }
+}
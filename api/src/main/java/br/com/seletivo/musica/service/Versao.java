@@ -0,0 +1,64 @@
+package br.com.seletivo.musica.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Instant;
+
+/**
+ * ETags derivados da coluna "versao" (@Version) das entidades.
+ * As respostas trazem URLs assinadas, que mudam na virada da janela de assinatura do MinIO, então o ETag
+ * também leva o início da janela. É fraco (W/): identifica a versão do recurso, não os bytes do corpo.
+ * Formato: W/"versao[.outras partes]-janela"; a primeira parte é sempre a versão da própria entidade.
+ */
+final class Versao {
+
+    private Versao() {
+    }
+
+    static String etag(Instant janela, Object... partes) {
+        StringBuilder sb = new StringBuilder("W/\"");
+        for (int i = 0; i < partes.length; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            sb.append(partes[i]);
+        }
+        return sb.append('-').append(janela.getEpochSecond()).append('"').toString();
+    }
+
+    /**
+     * Versão da entidade informada no If-Match, ou null se o cabeçalho não veio (ou é "*").
+     * O If-Match pede comparação forte, que nunca casa com ETags fracos; por isso comparamos só a versão
+     * da entidade, ignorando a janela e as demais partes.
+     */
+    static Long doIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.split(",")[0].trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        int fim = 0;
+        while (fim < tag.length() && Character.isDigit(tag.charAt(fim))) {
+            fim++;
+        }
+        if (fim == 0) {
+            throw new ParametroInvalidoException("If-Match inválido");
+        }
+        try {
+            return Long.parseLong(tag.substring(0, fim));
+        } catch (NumberFormatException e) {
+            throw new ParametroInvalidoException("If-Match inválido", e);
+        }
+    }
+
+    // Falha antes de alterar qualquer coisa se o cliente editou a partir de uma versão antiga.
+    // Edições simultâneas que passarem daqui ainda esbarram no @Version ao gravar.
+    static void conferir(Long esperada, Long atual) {
+        if (esperada != null && !esperada.equals(atual)) {
+            throw new OptimisticLockingFailureException("O recurso foi alterado por outra requisição");
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package br.com.seletivo.musica.storage;
+
+import java.util.List;
+
+/**
+ * Publicado pelo MinioService depois que as capas de um upload foram gravadas no banco.
+ */
+public record CapasEnviadasEvent(List<Long> capaIds) {
+}
@@ -0,0 +1,108 @@
+package br.com.seletivo.musica.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "thumbnails")
+public class MiniaturaProperties {
+
+    // Larguras (px) das variantes geradas para cada capa; a altura segue a proporção da imagem
+    private List<Integer> widths = List.of(64, 256, 1024);
+    private float jpegQuality = 0.85f;
+    // Threads e fila da geração. Quando a fila está cheia, a capa fica para o backfill.
+    private int threads = 2;
+    private int queueCapacity = 500;
+    // Backfill: reprocessa capas sem miniaturas (anteriores ao pipeline ou cuja geração falhou)
+    private boolean backfillEnabled = true;
+    private int backfillBatchSize = 50;
+    private long backfillIntervalMs = 600_000;
+    // Capas mais novas que isso ainda podem estar sendo processadas pelo upload
+    private int backfillMinAgeMinutes = 5;
+    // Falhas não transitórias (ex: imagem corrompida) após as quais o backfill desiste da capa
+    private int backfillMaxAttempts = 3;
+    // Por quanto tempo um lote do backfill fica reservado para a réplica que o pegou
+    private int backfillLeaseMinutes = 5;
+
+    public List<Integer> getWidths() {
+        return widths;
+    }
+
+    public void setWidths(List<Integer> widths) {
+        this.widths = widths;
+    }
+
+    public float getJpegQuality() {
+        return jpegQuality;
+    }
+
+    public void setJpegQuality(float jpegQuality) {
+        this.jpegQuality = jpegQuality;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public boolean isBackfillEnabled() {
+        return backfillEnabled;
+    }
+
+    public void setBackfillEnabled(boolean backfillEnabled) {
+        this.backfillEnabled = backfillEnabled;
+    }
+
+    public int getBackfillBatchSize() {
+        return backfillBatchSize;
+    }
+
+    public void setBackfillBatchSize(int backfillBatchSize) {
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    public long getBackfillIntervalMs() {
+        return backfillIntervalMs;
+    }
+
+    public void setBackfillIntervalMs(long backfillIntervalMs) {
+        this.backfillIntervalMs = backfillIntervalMs;
+    }
+
+    public int getBackfillMinAgeMinutes() {
+        return backfillMinAgeMinutes;
+    }
+
+    public void setBackfillMinAgeMinutes(int backfillMinAgeMinutes) {
+        this.backfillMinAgeMinutes = backfillMinAgeMinutes;
+    }
+
+    public int getBackfillMaxAttempts() {
+        return backfillMaxAttempts;
+    }
+
+    public void setBackfillMaxAttempts(int backfillMaxAttempts) {
+        this.backfillMaxAttempts = backfillMaxAttempts;
+    }
+
+    public int getBackfillLeaseMinutes() {
+        return backfillLeaseMinutes;
+    }
+
+    public void setBackfillLeaseMinutes(int backfillLeaseMinutes) {
+        this.backfillLeaseMinutes = backfillLeaseMinutes;
+    }
+}
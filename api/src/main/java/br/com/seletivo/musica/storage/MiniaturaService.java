@@ -0,0 +1,320 @@
+package br.com.seletivo.musica.storage;
+
+import br.com.seletivo.musica.domain.AlbumCapa;
+import br.com.seletivo.musica.repository.AlbumCapaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.minio.errors.ServerException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Gera versões reduzidas (miniaturas) das capas, para que as listagens baixem alguns KB em vez da imagem original.
+ * A geração roda em segundo plano, depois do commit do upload; um backfill periódico cuida das capas que ficaram pendentes.
+ */
+@Service
+public class MiniaturaService {
+
+    enum Resultado {
+        // Miniaturas gravadas, ou capa marcada como não reduzível
+        CONCLUIDA,
+        // Falha que não se resolve sozinha (ex: objeto ausente, imagem corrompida): conta uma tentativa
+        FALHOU,
+        // MinIO inacessível: a capa fica pendente sem contar tentativa
+        INDISPONIVEL
+    }
+
+    private final MiniaturaProperties properties;
+    private final AlbumCapaRepository albumCapaRepository;
+    private final MinioService minioService;
+    private final ExecutorService executor;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter miniaturasGeradas;
+    private final Counter falhas;
+    private final Timer tempoPorCapa;
+    private final Counter capasBackfill;
+    private final Timer duracaoBackfill;
+    // Capas por segundo na última execução do backfill
+    private final AtomicReference<Double> vazaoBackfill = new AtomicReference<>(0.0);
+
+    @Autowired
+    public MiniaturaService(MiniaturaProperties properties,
+                            AlbumCapaRepository albumCapaRepository,
+                            MinioService minioService,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this(properties, albumCapaRepository, minioService,
+                ExecutorServiceMetrics.monitor(meterRegistry, criarExecutor(properties), "miniaturas"),
+                transactionManager, meterRegistry);
+    }
+
+    MiniaturaService(MiniaturaProperties properties,
+                     AlbumCapaRepository albumCapaRepository,
+                     MinioService minioService,
+                     ExecutorService executor,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.albumCapaRepository = albumCapaRepository;
+        this.minioService = minioService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.miniaturasGeradas = meterRegistry.counter("miniaturas.geradas");
+        this.falhas = meterRegistry.counter("miniaturas.falhas");
+        this.tempoPorCapa = meterRegistry.timer("miniaturas.geracao");
+        this.capasBackfill = meterRegistry.counter("miniaturas.backfill.capas");
+        this.duracaoBackfill = meterRegistry.timer("miniaturas.backfill.duracao");
+        meterRegistry.gauge("miniaturas.backfill.capas-por-segundo", vazaoBackfill, AtomicReference::get);
+    }
+
+    // Decodificar imagens grandes usa bastante CPU e memória, então o pool é pequeno e a fila limitada.
+    // Não é exposto como bean para não substituir o executor padrão do Spring.
+    private static ExecutorService criarExecutor(MiniaturaProperties properties) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getThreads(), properties.getThreads(),
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("miniaturas-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // Roda depois do commit do upload, para que as capas já estejam visíveis no banco.
+    // Sem transação (ex: chamado fora de um serviço transacional), roda na hora.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoEnviarCapas(CapasEnviadasEvent evento) {
+        for (Long capaId : evento.capaIds()) {
+            try {
+                executor.execute(() -> albumCapaRepository.findById(capaId).ifPresent(this::gerarMiniaturas));
+            } catch (RejectedExecutionException e) {
+                // Fila cheia: não seguramos a requisição; a capa continua pendente e o backfill a processa depois
+                System.err.println("Fila de miniaturas cheia, capa " + capaId + " fica para o backfill");
+            }
+        }
+    }
+
+    /**
+     * Processa as capas sem miniaturas em lotes, em ordem de ID.
+     * Todas as réplicas rodam o backfill; cada lote é reservado por uma delas (ver reservarLote), então as
+     * réplicas dividem as capas pendentes em vez de gerar as mesmas miniaturas em paralelo.
+     * Capas que falharem continuam pendentes e são tentadas de novo nas próximas execuções, até o limite de
+     * tentativas; se o MinIO estiver fora do ar, a execução para e nenhuma tentativa é contada.
+     */
+    @Scheduled(initialDelayString = "${thumbnails.backfill-interval-ms:600000}",
+            fixedDelayString = "${thumbnails.backfill-interval-ms:600000}")
+    public void processarPendentes() {
+        if (!properties.isBackfillEnabled()) {
+            return;
+        }
+        Instant enviadasAntes = Instant.now().minus(Duration.ofMinutes(properties.getBackfillMinAgeMinutes()));
+        long inicio = System.nanoTime();
+        long aposId = 0;
+        int processadas = 0;
+        List<AlbumCapa> lote;
+        do {
+            long depoisDe = aposId;
+            lote = transactionTemplate.execute(status -> reservarLote(enviadasAntes, depoisDe));
+            if (lote.isEmpty()) {
+                break;
+            }
+            List<CompletableFuture<Resultado>> execucoes = lote.stream()
+                    .map(this::gerarNoPool)
+                    .collect(Collectors.toList());
+            List<Resultado> resultados = execucoes.stream()
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+            long sucesso = resultados.stream().filter(r -> r == Resultado.CONCLUIDA).count();
+            processadas += (int) sucesso;
+            capasBackfill.increment(sucesso);
+            if (resultados.contains(Resultado.INDISPONIVEL)) {
+                // MinIO fora do ar: as capas seguintes também falhariam; tenta de novo na próxima execução
+                break;
+            }
+            // As falhas permanentes do lote já contaram uma tentativa; segue para o próximo mesmo assim
+            aposId = lote.get(lote.size() - 1).getId();
+        } while (lote.size() == properties.getBackfillBatchSize());
+
+        long nanos = System.nanoTime() - inicio;
+        duracaoBackfill.record(nanos, TimeUnit.NANOSECONDS);
+        if (processadas > 0) {
+            vazaoBackfill.set(processadas / (nanos / 1_000_000_000.0));
+        }
+    }
+
+    // Trava o próximo lote com "for update skip locked" e o marca como reservado até o fim da reserva, no mesmo
+    // commit. A geração roda depois, fora da transação: a trava da linha não fica aberta durante o download e o
+    // envio das miniaturas, e as capas que uma réplica não terminar (ex: caiu no meio) voltam quando a reserva vence.
+    private List<AlbumCapa> reservarLote(Instant enviadasAntes, long aposId) {
+        Instant agora = Instant.now();
+        List<AlbumCapa> lote = albumCapaRepository.travarSemMiniaturas(enviadasAntes, aposId,
+                properties.getBackfillMaxAttempts(), agora, properties.getBackfillBatchSize());
+        if (!lote.isEmpty()) {
+            albumCapaRepository.reservarMiniaturas(lote.stream().map(AlbumCapa::getId).collect(Collectors.toList()),
+                    agora.plus(Duration.ofMinutes(properties.getBackfillLeaseMinutes())));
+        }
+        return lote;
+    }
+
+    // Usa o pool de geração; se a fila estiver cheia, processa na própria thread do agendador
+    private CompletableFuture<Resultado> gerarNoPool(AlbumCapa capa) {
+        try {
+            return CompletableFuture.supplyAsync(() -> gerarMiniaturas(capa), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(gerarMiniaturas(capa));
+        }
+    }
+
+    /**
+     * Baixa a capa original, decodifica uma única vez e grava uma miniatura JPEG para cada largura configurada.
+     * Em caso de falha a capa fica pendente; só as falhas que não são de rede contam uma tentativa.
+     */
+    Resultado gerarMiniaturas(AlbumCapa capa) {
+        long inicio = System.nanoTime();
+        BufferedImage original;
+        try (InputStream conteudo = minioService.abrirObjeto(capa.getObjetoMinio())) {
+            original = ImageIO.read(conteudo);
+        } catch (Exception e) {
+            return falhar(capa, e);
+        }
+        if (original == null) {
+            // Formato que o ImageIO não decodifica: marca como processada, sem miniaturas
+            albumCapaRepository.registrarMiniaturas(capa.getId(), "");
+            return Resultado.CONCLUIDA;
+        }
+
+        List<Integer> geradas = new ArrayList<>();
+        // Da maior para a menor, reduzindo a partir da variante anterior: cada passo lê uma imagem menor
+        // e a qualidade fica melhor do que reduzir de uma vez só
+        BufferedImage origem = original;
+        List<Integer> larguras = properties.getWidths().stream()
+                .distinct()
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+        try {
+            for (int largura : larguras) {
+                if (largura >= original.getWidth()) {
+                    // Não amplia: para essa largura o frontend usa a capa original
+                    continue;
+                }
+                BufferedImage reduzida = reduzir(origem, largura);
+                minioService.gravarObjeto(MinioService.nomeMiniatura(capa.getObjetoMinio(), largura),
+                        codificarJpeg(reduzida), "image/jpeg");
+                miniaturasGeradas.increment();
+                geradas.add(largura);
+                origem = reduzida;
+            }
+        } catch (Exception e) {
+            return falhar(capa, e);
+        }
+
+        albumCapaRepository.registrarMiniaturas(capa.getId(), geradas.stream()
+                .sorted()
+                .map(String::valueOf)
+                .collect(Collectors.joining(",")));
+        if (!geradas.isEmpty()) {
+            albumCapaRepository.incrementarVersaoDoAlbum(capa.getId());
+        }
+        tempoPorCapa.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        return Resultado.CONCLUIDA;
+    }
+
+    private Resultado falhar(AlbumCapa capa, Exception e) {
+        falhas.increment();
+        if (transitoria(e)) {
+            System.err.println("MinIO indisponível ao gerar as miniaturas da capa " + capa.getId() + ": " + e);
+            return Resultado.INDISPONIVEL;
+        }
+        e.printStackTrace();
+        albumCapaRepository.registrarFalhaMiniaturas(capa.getId());
+        return Resultado.FALHOU;
+    }
+
+    // Erro de rede ou do servidor do MinIO (conexão recusada ou interrompida, timeout, 5xx), em qualquer nível
+    // da causa: o ImageIO, por exemplo, embrulha a falha de leitura do stream em uma IIOException
+    private static boolean transitoria(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SocketException
+                    || causa instanceof SocketTimeoutException
+                    || causa instanceof UnknownHostException
+                    || causa instanceof ServerException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BufferedImage reduzir(BufferedImage origem, int largura) {
+        int altura = Math.max(1, (int) Math.round((double) origem.getHeight() * largura / origem.getWidth()));
+        BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG não tem transparência: fundo branco para PNGs com alfa
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, largura, altura);
+            g.drawImage(origem, 0, 0, largura, altura, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private byte[] codificarJpeg(BufferedImage imagem) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(saida)) {
+            ImageWriteParam parametros = writer.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(properties.getJpegQuality());
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(imagem, null, null), parametros);
+        } finally {
+            writer.dispose();
+        }
+        return saida.toByteArray();
+    }
+}
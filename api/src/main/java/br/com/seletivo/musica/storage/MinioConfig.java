@@ -0,0 +1,19 @@
+package br.com.seletivo.musica.storage;
+
+import io.minio.MinioClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MinioConfig {
+
+    // Cliente para operações internas (upload, download, gerenciamento de bucket).
+    // As URLs assinadas para o navegador usam o host público e são geradas pelo MinioService.
+    @Bean
+    public MinioClient minioClient(MinioProperties properties) {
+        return MinioClient.builder()
+                .endpoint(properties.getInternalUrl())
+                .credentials(properties.getAccessKey(), properties.getSecretKey())
+                .build();
+    }
+}
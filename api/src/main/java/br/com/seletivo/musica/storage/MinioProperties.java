@@ -14,6 +14,16 @@ public class MinioProperties {
     private String accessKey;
     private String secretKey;
     private String bucket;
+    private String region = "us-east-1";
+    // Janela de validade das URLs assinadas. Dentro de uma janela, o mesmo objeto recebe sempre a mesma URL.
+    private int presignWindowMinutes = 30;
+    private int presignCacheSize = 40_000;
+    // Envios ao MinIO: threads do pool compartilhado, fila do pool, envios simultâneos por requisição
+    // e tamanho das partes do upload multipart (mínimo de 5 MB exigido pelo S3)
+    private int uploadThreads = 16;
+    private int uploadQueueCapacity = 256;
+    private int uploadConcurrencyPerRequest = 4;
+    private int partSizeMb = 16;
 
     public String getInternalUrl() {
         return String.format("http://%s:%d", internalHost, internalPort);
@@ -78,5 +88,60 @@ public class MinioProperties {
     public void setBucket(String bucket) {
         this.bucket = bucket;
     }
-}
 
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public int getPresignWindowMinutes() {
+        return presignWindowMinutes;
+    }
+
+    public void setPresignWindowMinutes(int presignWindowMinutes) {
+        this.presignWindowMinutes = presignWindowMinutes;
+    }
+
+    public int getPresignCacheSize() {
+        return presignCacheSize;
+    }
+
+    public void setPresignCacheSize(int presignCacheSize) {
+        this.presignCacheSize = presignCacheSize;
+    }
+
+    public int getUploadThreads() {
+        return uploadThreads;
+    }
+
+    public void setUploadThreads(int uploadThreads) {
+        this.uploadThreads = uploadThreads;
+    }
+
+    public int getUploadQueueCapacity() {
+        return uploadQueueCapacity;
+    }
+
+    public void setUploadQueueCapacity(int uploadQueueCapacity) {
+        this.uploadQueueCapacity = uploadQueueCapacity;
+    }
+
+    public int getUploadConcurrencyPerRequest() {
+        return uploadConcurrencyPerRequest;
+    }
+
+    public void setUploadConcurrencyPerRequest(int uploadConcurrencyPerRequest) {
+        this.uploadConcurrencyPerRequest = uploadConcurrencyPerRequest;
+    }
+
+    public int getPartSizeMb() {
+        return partSizeMb;
+    }
+
+    public void setPartSizeMb(int partSizeMb) {
+        this.partSizeMb = partSizeMb;
+    }
+}
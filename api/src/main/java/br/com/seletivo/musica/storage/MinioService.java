@@ -1,48 +1,157 @@
 package br.com.seletivo.musica.storage;
 
+import br.com.seletivo.musica.config.ThreadsVirtuais;
 import br.com.seletivo.musica.domain.Album;
 import br.com.seletivo.musica.domain.AlbumCapa;
+import br.com.seletivo.musica.domain.CapaObjeto;
 import br.com.seletivo.musica.repository.AlbumCapaRepository;
-import io.minio.GetPresignedObjectUrlArgs;
-import io.minio.http.Method;
+import br.com.seletivo.musica.repository.AlbumCapaRepository.MiniaturasDoConteudo;
+import br.com.seletivo.musica.repository.CapaObjetoRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.minio.GetObjectArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.S3Escaper;
+import io.minio.Signer;
+import io.minio.Time;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Service
 public class MinioService {
 
+    // Classe dos bloqueios consultivos por conteúdo (CapaObjetoRepository.travarConteudo)
+    static final int CLASSE_BLOQUEIO_CONTEUDO = 7_002;
+
     private final MinioProperties properties;
     private final AlbumCapaRepository albumCapaRepository;
+    private final CapaObjetoRepository capaObjetoRepository;
     private final MinioClient internalClient;
-    private final MinioClient presignerClient;
+    // Pool próprio para os envios ao MinIO, para que uploads não ocupem as threads do Tomcat
+    // esperando a rede. Não é exposto como bean para não substituir o executor padrão do Spring.
+    private final ExecutorService uploadExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    // Transação própria da compensação. De escrita, para ler no primário o que outros uploads já gravaram
+    // (a réplica pode estar atrasada).
+    private final TransactionTemplate compensacao;
+    private final Clock clock;
+    // URLs assinadas por nome de objeto. Cada entrada expira ao fim da janela em que foi assinada.
+    private final Cache<String, UrlAssinada> urlsAssinadas;
+    private final Counter capasDeduplicadas;
+
+    @Autowired
+    public MinioService(MinioProperties properties,
+                        AlbumCapaRepository albumCapaRepository,
+                        CapaObjetoRepository capaObjetoRepository,
+                        MinioClient internalClient,
+                        ApplicationEventPublisher eventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        Environment environment) {
+        this(properties, albumCapaRepository, capaObjetoRepository, internalClient,
+                ExecutorServiceMetrics.monitor(meterRegistry, criarExecutorUploads(properties, environment), "minio.uploads"),
+                eventPublisher, transactionManager, meterRegistry, Clock.systemUTC());
+    }
 
-    public MinioService(MinioProperties properties, AlbumCapaRepository albumCapaRepository) {
+    MinioService(MinioProperties properties,
+                 AlbumCapaRepository albumCapaRepository,
+                 CapaObjetoRepository capaObjetoRepository,
+                 MinioClient internalClient,
+                 ExecutorService uploadExecutor,
+                 ApplicationEventPublisher eventPublisher,
+                 PlatformTransactionManager transactionManager,
+                 MeterRegistry meterRegistry,
+                 Clock clock) {
         this.properties = properties;
         this.albumCapaRepository = albumCapaRepository;
-        
-        // Cliente para operações internas (upload, gerenciamento de bucket)
-        this.internalClient = MinioClient.builder()
-                .endpoint(properties.getInternalUrl())
-                .credentials(properties.getAccessKey(), properties.getSecretKey())
-                .build();
+        this.capaObjetoRepository = capaObjetoRepository;
+        this.internalClient = internalClient;
+        this.uploadExecutor = uploadExecutor;
+        this.eventPublisher = eventPublisher;
+        this.compensacao = new TransactionTemplate(transactionManager);
+        this.compensacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = clock;
 
-        // Cliente específico para gerar URLs assinadas usando o host público.
-        // Este cliente NÃO deve ser usado para operações de rede (upload/download/bucketExists)
-        // pois o host público (ex: localhost) pode não ser acessível de dentro do container.
-        this.presignerClient = MinioClient.builder()
-                .endpoint(properties.getPublicUrl())
-                .credentials(properties.getAccessKey(), properties.getSecretKey())
+        // O S3 aceita no máximo 7 dias de validade, e cada URL vale por duas janelas
+        if (janela().multipliedBy(2).compareTo(Duration.ofDays(7)) > 0) {
+            throw new IllegalArgumentException("minio.presign-window-minutes deve ser no máximo 3,5 dias");
+        }
+        this.urlsAssinadas = Caffeine.newBuilder()
+                .maximumSize(properties.getPresignCacheSize())
+                .expireAfter(new ExpiraNoFimDaJanela())
+                .recordStats()
                 .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, urlsAssinadas, "minio.urls-assinadas");
+        this.capasDeduplicadas = meterRegistry.counter("minio.capas.deduplicadas");
+    }
+
+    // Fila limitada: quando cheia, a própria thread da requisição faz o envio (backpressure em vez de enfileirar sem fim).
+    // No modo de threads virtuais as threads do pool são virtuais, mas upload-threads segue limitando os envios simultâneos.
+    private static ExecutorService criarExecutorUploads(MinioProperties properties, Environment environment) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getUploadThreads(), properties.getUploadThreads(),
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(properties.getUploadQueueCapacity()),
+                ThreadsVirtuais.fabrica(environment, "minio-upload-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
     }
 
     @PostConstruct
@@ -63,52 +172,320 @@ public class MinioService {
         }
     }
 
+    /**
+     * Calcula o SHA-256 de cada arquivo e envia ao MinIO, em paralelo, só os conteúdos que ainda não estão armazenados,
+     * com no máximo minio.upload-concurrency-per-request envios simultâneos por requisição. Os registros AlbumCapa
+     * só são gravados depois que todos os objetos foram armazenados. Se o upload falhar ou a transação for desfeita,
+     * os objetos gravados por ele que continuarem sem referências são removidos.
+     * Ao final publica CapasEnviadasEvent, que dispara a geração das miniaturas.
+     */
     public List<AlbumCapa> uploadCapas(Album album, List<MultipartFile> arquivos) {
-        return arquivos.stream()
-                .map(arquivo -> uploadCapa(album, arquivo))
+        // O arquivo do multipart já está no disco/memória local, então ler duas vezes (hash e envio)
+        // custa bem menos do que enviar de novo ao MinIO um conteúdo que já está lá
+        List<AlbumCapa> capas = new ArrayList<>();
+        Map<String, MultipartFile> conteudosNovos = new LinkedHashMap<>();
+        for (MultipartFile arquivo : arquivos) {
+            String hash = calcularSha256(arquivo);
+            capas.add(novaCapa(album, arquivo, hash));
+            // Arquivos repetidos no mesmo upload são enviados uma vez só
+            conteudosNovos.putIfAbsent(hash, arquivo);
+        }
+
+        // Trava cada conteúdo até o commit (em ordem, para dois uploads não se esperarem em ciclo). Um upload
+        // concorrente do mesmo conteúdo espera este terminar, e a compensação de um upload desfeito não remove
+        // um objeto que este enviou e ainda vai referenciar.
+        conteudosNovos.keySet().stream()
+                .sorted()
+                .forEach(hash -> capaObjetoRepository.travarConteudo(CLASSE_BLOQUEIO_CONTEUDO, hash));
+
+        // Conteúdos já armazenados, resolvidos aqui em uma consulta: as threads de envio não usam o banco
+        List<String> existentes = capaObjetoRepository.findAllById(conteudosNovos.keySet()).stream()
+                .map(CapaObjeto::getHashSha256)
                 .collect(Collectors.toList());
-    }
+        if (!existentes.isEmpty()) {
+            Map<String, String> miniaturas = albumCapaRepository.buscarMiniaturasPorHash(existentes).stream()
+                    .collect(Collectors.toMap(MiniaturasDoConteudo::getHashSha256, MiniaturasDoConteudo::getMiniaturas));
+            capas.forEach(capa -> capa.setMiniaturas(miniaturas.get(capa.getHashSha256())));
+            conteudosNovos.keySet().removeAll(existentes);
+        }
+        capasDeduplicadas.increment(capas.size() - conteudosNovos.size());
+
+        Semaphore emAndamento = new Semaphore(properties.getUploadConcurrencyPerRequest());
+        AtomicBoolean falhou = new AtomicBoolean(false);
+        Map<String, CompletableFuture<Void>> envios = new LinkedHashMap<>();
+        for (Map.Entry<String, MultipartFile> conteudo : conteudosNovos.entrySet()) {
+            emAndamento.acquireUninterruptibly();
+            if (falhou.get()) {
+                // Não adianta enviar o restante: o upload inteiro será desfeito
+                emAndamento.release();
+                break;
+            }
+            CompletableFuture<Void> envio = CompletableFuture.runAsync(
+                    () -> enviarObjeto(conteudo.getKey(), conteudo.getValue()), uploadExecutor);
+            envio.whenComplete((resultado, erro) -> {
+                if (erro != null) {
+                    falhou.set(true);
+                }
+                emAndamento.release();
+            });
+            envios.put(conteudo.getKey(), envio);
+        }
 
-    private AlbumCapa uploadCapa(Album album, MultipartFile arquivo) {
-        String objectName = "album/" + album.getId() + "/" + UUID.randomUUID();
+        List<String> gravados = new ArrayList<>();
+        RuntimeException erro = null;
+        for (Map.Entry<String, CompletableFuture<Void>> envio : envios.entrySet()) {
+            try {
+                envio.getValue().join();
+                gravados.add(envio.getKey());
+            } catch (CompletionException e) {
+                if (erro == null) {
+                    erro = e.getCause() instanceof RuntimeException re ? re : e;
+                }
+            }
+        }
+
+        // Em uma transação, a compensação espera o rollback (inclusive por falhas de quem chamou): com a transação
+        // abortada não dá para consultar o banco, e só depois dela as referências de outros uploads ficam visíveis
+        boolean emTransacao = TransactionSynchronizationManager.isSynchronizationActive();
+        if (emTransacao && !gravados.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        removerObjetosNaoReferenciados(gravados);
+                    }
+                }
+            });
+        }
+
+        List<AlbumCapa> salvas;
         try {
+            if (erro != null) {
+                throw erro;
+            }
+            salvas = albumCapaRepository.saveAll(capas);
+            // Uma referência por capa; arquivos repetidos no mesmo upload somam juntos
+            Map<String, List<AlbumCapa>> porHash = salvas.stream()
+                    .collect(Collectors.groupingBy(AlbumCapa::getHashSha256));
+            porHash.forEach((hash, doHash) -> capaObjetoRepository.adicionarReferencias(
+                    hash, doHash.get(0).getObjetoMinio(), doHash.get(0).getTamanhoBytes(), doHash.size()));
+        } catch (RuntimeException e) {
+            if (!emTransacao) {
+                // Sem transação não há rollback a esperar
+                removerObjetosNaoReferenciados(gravados);
+            }
+            throw e;
+        }
+        // Capas deduplicadas que já herdaram as miniaturas não precisam passar pela geração
+        List<Long> semMiniaturas = salvas.stream()
+                .filter(capa -> capa.getMiniaturas() == null)
+                .map(AlbumCapa::getId)
+                .collect(Collectors.toList());
+        if (!semMiniaturas.isEmpty()) {
+            eventPublisher.publishEvent(new CapasEnviadasEvent(semMiniaturas));
+        }
+        return salvas;
+    }
+
+    // Lê um objeto do bucket. Quem chama deve fechar o stream.
+    public InputStream abrirObjeto(String objeto) throws Exception {
+        return internalClient.getObject(
+                GetObjectArgs.builder()
+                        .bucket(properties.getBucket())
+                        .object(objeto)
+                        .build());
+    }
+
+    // Grava um objeto pequeno, já inteiro em memória (ex: miniaturas)
+    public void gravarObjeto(String objeto, byte[] conteudo, String contentType) throws Exception {
+        internalClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(properties.getBucket())
+                        .object(objeto)
+                        .stream(new ByteArrayInputStream(conteudo), conteudo.length, -1)
+                        .contentType(contentType)
+                        .build());
+    }
+
+    // Capas endereçadas pelo conteúdo: o objeto é "capas/{hash}"
+    private static AlbumCapa novaCapa(Album album, MultipartFile arquivo, String hash) {
+        AlbumCapa capa = new AlbumCapa();
+        capa.setAlbum(album);
+        capa.setObjetoMinio(nomeObjeto(hash));
+        capa.setHashSha256(hash);
+        capa.setContentType(arquivo.getContentType() != null ? arquivo.getContentType() : "application/octet-stream");
+        capa.setTamanhoBytes(arquivo.getSize());
+        return capa;
+    }
+
+    private static String nomeObjeto(String hash) {
+        return "capas/" + hash;
+    }
+
+    // Roda nas threads de envio: só fala com o MinIO, nunca com o banco
+    private void enviarObjeto(String hash, MultipartFile arquivo) {
+        try (InputStream conteudo = arquivo.getInputStream()) {
             internalClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(properties.getBucket())
-                            .object(objectName)
-                            .stream(arquivo.getInputStream(), arquivo.getSize(), -1)
+                            .object(nomeObjeto(hash))
+                            // Arquivos maiores que a parte são enviados em multipart com partes desse tamanho
+                            .stream(conteudo, arquivo.getSize(), properties.getPartSizeMb() * 1024L * 1024L)
                             .contentType(arquivo.getContentType())
                             .build()
             );
         } catch (Exception e) {
             throw new RuntimeException("Erro ao enviar arquivo para o MinIO", e);
         }
+    }
 
-        AlbumCapa capa = new AlbumCapa();
-        capa.setAlbum(album);
-        capa.setObjetoMinio(objectName);
-        capa.setContentType(arquivo.getContentType() != null ? arquivo.getContentType() : "application/octet-stream");
-        capa.setTamanhoBytes(arquivo.getSize());
-        return albumCapaRepository.save(capa);
+    private static String calcularSha256(MultipartFile arquivo) {
+        try (DigestInputStream conteudo = new DigestInputStream(arquivo.getInputStream(), MessageDigest.getInstance("SHA-256"))) {
+            conteudo.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(conteudo.getMessageDigest().digest());
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao ler arquivo enviado", e);
+        }
+    }
+
+    // Remove os objetos gravados por um upload que não pôde ser concluído.
+    // Objetos com referências são mantidos: outro upload com o mesmo conteúdo gravou o mesmo objeto e já o registrou.
+    // Com os conteúdos travados, um upload concorrente que também enviou o objeto, mas ainda não fez commit,
+    // termina antes da consulta (e a referência dele aparece), ou só começa depois da remoção (e envia de novo).
+    private void removerObjetosNaoReferenciados(List<String> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        try {
+            compensacao.executeWithoutResult(status -> removerSemReferencias(hashes));
+        } catch (RuntimeException e) {
+            // Não esconde o erro que desfez o upload; o objeto fica órfão no bucket
+            e.printStackTrace();
+        }
+    }
+
+    private void removerSemReferencias(List<String> hashes) {
+        hashes.stream()
+                .sorted()
+                .forEach(hash -> capaObjetoRepository.travarConteudo(CLASSE_BLOQUEIO_CONTEUDO, hash));
+        Set<String> referenciados = new HashSet<>(capaObjetoRepository.buscarReferenciados(hashes));
+        List<DeleteObject> objetos = hashes.stream()
+                .filter(hash -> !referenciados.contains(hash))
+                .map(hash -> new DeleteObject(nomeObjeto(hash)))
+                .collect(Collectors.toList());
+        if (objetos.isEmpty()) {
+            return;
+        }
+        // Remove ainda com os conteúdos travados
+        Iterable<Result<DeleteError>> erros = internalClient.removeObjects(
+                RemoveObjectsArgs.builder().bucket(properties.getBucket()).objects(objetos).build());
+        // A remoção é preguiçosa: só acontece ao percorrer o resultado
+        for (Result<DeleteError> resultado : erros) {
+            try {
+                DeleteError erro = resultado.get();
+                System.err.println("Falha ao remover objeto " + erro.objectName() + " do MinIO: " + erro.message());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     // Gera uma URL temporária (assinada) para acesso direto ao objeto no MinIO.
     // Isso evita que o tráfego de download passe pela nossa API, aliviando o servidor.
-    public String gerarUrlAssinada(AlbumCapa capa, int minutosExpiracao) {
+    //
+    // O tempo é dividido em janelas fixas (minio.presign-window-minutes). Todas as URLs de uma janela
+    // são assinadas com X-Amz-Date igual ao início da janela e valem por duas janelas, então:
+    // - o mesmo objeto recebe a mesma URL durante a janela inteira (navegador e CDN conseguem fazer cache);
+    // - a URL é renovada na virada da janela, quando ainda resta pelo menos uma janela de validade.
+    public String gerarUrlAssinada(AlbumCapa capa) {
+        return gerarUrlAssinada(capa.getObjetoMinio());
+    }
+
+    // URLs assinadas das miniaturas já geradas para a capa, por largura em pixels
+    public Map<Integer, String> gerarUrlsMiniaturas(AlbumCapa capa) {
+        Map<Integer, String> urls = new TreeMap<>();
+        if (capa.getMiniaturas() == null || capa.getMiniaturas().isBlank()) {
+            return urls;
+        }
+        for (String largura : capa.getMiniaturas().split(",")) {
+            int pixels = Integer.parseInt(largura.trim());
+            urls.put(pixels, gerarUrlAssinada(nomeMiniatura(capa.getObjetoMinio(), pixels)));
+        }
+        return urls;
+    }
+
+    // Nome do objeto da miniatura: capas/{hash} -> capas/{hash}-256.jpg
+    public static String nomeMiniatura(String objeto, int largura) {
+        return objeto + "-" + largura + ".jpg";
+    }
+
+    public String gerarUrlAssinada(String objeto) {
+        Instant inicioJanela = inicioJanelaAtual();
+        UrlAssinada cached = urlsAssinadas.getIfPresent(objeto);
+        if (cached != null && cached.inicioJanela().equals(inicioJanela)) {
+            return cached.url();
+        }
         try {
-            // Usa o cliente configurado com host público para gerar a URL correta diretamente
-            return presignerClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .bucket(properties.getBucket())
-                            .object(capa.getObjetoMinio())
-                            .method(Method.GET)
-                            .expiry(minutosExpiracao * 60)
-                            .build()
-            );
+            UrlAssinada nova = new UrlAssinada(assinar(objeto, inicioJanela), inicioJanela, inicioJanela.plus(janela()));
+            urlsAssinadas.put(objeto, nova);
+            return nova.url();
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
-}
 
+    // Assina a URL diretamente com o host público, sem chamada de rede.
+    // O host público (ex: localhost) pode não ser acessível de dentro do container.
+    String assinar(String objeto, Instant dataAssinatura) throws Exception {
+        HttpUrl url = HttpUrl.get(properties.getPublicUrl()).newBuilder()
+                .addEncodedPathSegment(S3Escaper.encode(properties.getBucket()))
+                .addEncodedPathSegments(S3Escaper.encodePath(objeto))
+                .build();
+        String host = url.port() == HttpUrl.defaultPort(url.scheme()) ? url.host() : url.host() + ":" + url.port();
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .header("Host", host)
+                .header("x-amz-date", Time.AMZ_DATE_FORMAT.format(dataAssinatura.atZone(Time.UTC)))
+                .build();
+        int expiracaoSegundos = (int) janela().multipliedBy(2).toSeconds();
+        return Signer.presignV4(request, properties.getRegion(), properties.getAccessKey(),
+                properties.getSecretKey(), expiracaoSegundos).toString();
+    }
+
+    /**
+     * Início da janela de assinatura atual. As URLs assinadas das capas mudam quando ela vira.
+     */
+    public Instant inicioJanelaAtual() {
+        long janelaMillis = janela().toMillis();
+        long agora = clock.millis();
+        return Instant.ofEpochMilli(agora - Math.floorMod(agora, janelaMillis));
+    }
+
+    private Duration janela() {
+        return Duration.ofMinutes(properties.getPresignWindowMinutes());
+    }
+
+    private record UrlAssinada(String url, Instant inicioJanela, Instant fimJanela) {
+    }
+
+    private class ExpiraNoFimDaJanela implements Expiry<String, UrlAssinada> {
+
+        @Override
+        public long expireAfterCreate(String objeto, UrlAssinada url, long currentTime) {
+            long restante = url.fimJanela().toEpochMilli() - clock.millis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restante, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String objeto, UrlAssinada url, long currentTime, long currentDuration) {
+            return expireAfterCreate(objeto, url, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String objeto, UrlAssinada url, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
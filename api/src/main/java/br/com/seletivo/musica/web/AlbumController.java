@@ -2,6 +2,7 @@ package br.com.seletivo.musica.web;
 
 import br.com.seletivo.musica.dto.AlbumDto;
 import br.com.seletivo.musica.dto.AlbumRequest;
+import br.com.seletivo.musica.dto.CursorPage;
 import br.com.seletivo.musica.service.AlbumService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,9 +10,12 @@ import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -31,22 +35,44 @@ public class AlbumController {
         this.service = service;
     }
 
-    // Listar álbuns, podendo filtrar por artista (ID ou nome).
+    // Listar álbuns, podendo filtrar por artista (ID ou nome) ou por título.
     // Rota: GET /albuns
     @GetMapping("/albuns")
-    @Operation(summary = "Listar álbuns", description = "Lista álbuns com filtros opcionais por artista")
+    @Operation(summary = "Listar álbuns", description = "Lista álbuns com filtros opcionais por artista ou título")
     public Page<AlbumDto> listar(
             @RequestParam(required = false) Long artistaId,
             @RequestParam(required = false) String nomeArtista,
+            @RequestParam(required = false) String titulo,
             @PageableDefault(size = 10, sort = "anoLancamento") Pageable pageable) {
-        return service.listar(artistaId, nomeArtista, pageable);
+        return service.listar(artistaId, nomeArtista, titulo, pageable);
+    }
+
+    // Listar álbuns por cursor (keyset), sem totais. Ativado pela presença do parâmetro "after":
+    // a primeira página usa after vazio e as seguintes o nextCursor da resposta anterior.
+    // Rota: GET /albuns?after=&size=10
+    @GetMapping(value = "/albuns", params = "after")
+    @Operation(summary = "Listar álbuns por cursor",
+            description = "Lista álbuns ordenados por ano e ID a partir do cursor informado em 'after', "
+                    + "com os mesmos filtros opcionais por artista ou título")
+    public CursorPage<AlbumDto> listarPorCursor(
+            @RequestParam(required = false) Long artistaId,
+            @RequestParam(required = false) String nomeArtista,
+            @RequestParam(required = false) String titulo,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+        return service.listarPorCursor(artistaId, nomeArtista, titulo, after, size);
     }
 
     // Buscar álbum por ID.
     @GetMapping("/albuns/{id}")
     @Operation(summary = "Buscar álbum", description = "Retorna detalhes de um álbum")
-    public ResponseEntity<AlbumDto> buscarPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(service.buscarPorId(id));
+    public ResponseEntity<AlbumDto> buscarPorId(@PathVariable Long id, WebRequest request) {
+        // Se o cliente já tem a versão atual (If-None-Match), responde 304 sem montar o DTO
+        String etag = service.etag(id);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(service.buscarPorId(id));
     }
 
     // Criar álbum associado a um artista.
@@ -63,12 +89,15 @@ public class AlbumController {
     }
 
     // Atualizar álbum.
+    // Com If-Match (ETag do GET), responde 412 se o álbum foi alterado desde então.
     @PutMapping("/albuns/{id}")
     @Operation(summary = "Atualizar álbum", description = "Atualiza dados de um álbum")
     public ResponseEntity<AlbumDto> atualizar(
             @PathVariable Long id,
-            @RequestBody @Valid AlbumRequest request) {
-        return ResponseEntity.ok(service.atualizar(id, request));
+            @RequestBody @Valid AlbumRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AlbumDto atualizado = service.atualizar(id, request, ifMatch);
+        return ResponseEntity.ok().eTag(service.etag(id)).body(atualizado);
     }
 
     // Upload de capas para um álbum.
@@ -78,6 +107,7 @@ public class AlbumController {
     public ResponseEntity<AlbumDto> uploadCapas(
             @PathVariable Long id,
             @RequestPart("files") List<MultipartFile> files) {
-        return ResponseEntity.ok(service.uploadCapas(id, files));
+        AlbumDto album = service.uploadCapas(id, files);
+        return ResponseEntity.ok().eTag(service.etag(id)).body(album);
     }
 }
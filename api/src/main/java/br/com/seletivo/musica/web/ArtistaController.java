@@ -3,6 +3,8 @@ package br.com.seletivo.musica.web;
 import br.com.seletivo.musica.dto.ArtistaDetalheDto;
 import br.com.seletivo.musica.dto.ArtistaRequest;
 import br.com.seletivo.musica.dto.ArtistaResumoDto;
+import br.com.seletivo.musica.dto.CursorPage;
+import br.com.seletivo.musica.dto.Versionado;
 import br.com.seletivo.musica.service.ArtistaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -10,8 +12,11 @@ import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
@@ -39,12 +44,30 @@ public class ArtistaController {
         return service.listar(nome, pageable);
     }
 
+    // Endpoint para listar artistas por cursor (keyset), ordenados por nome, sem totais.
+    // Ativado pela presença do parâmetro "after" (vazio na primeira página).
+    // Exemplo: GET /artistas?after=&size=10
+    @GetMapping(params = "after")
+    @Operation(summary = "Listar artistas por cursor",
+            description = "Lista artistas ordenados por nome a partir do cursor informado em 'after'")
+    public CursorPage<ArtistaResumoDto> listarPorCursor(
+            @RequestParam(required = false) String nome,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") int size) {
+        return service.listarPorCursor(nome, after, size);
+    }
+
     // Endpoint para buscar os detalhes de um artista pelo ID.
     // Inclui a lista de álbuns do artista.
     @GetMapping("/{id}")
     @Operation(summary = "Buscar artista por ID", description = "Retorna detalhes do artista e seus álbuns")
-    public ResponseEntity<ArtistaDetalheDto> buscarPorId(@PathVariable Long id) {
-        return ResponseEntity.ok(service.buscarPorId(id));
+    public ResponseEntity<ArtistaDetalheDto> buscarPorId(@PathVariable Long id, WebRequest request) {
+        // Se o cliente já tem a versão atual (If-None-Match), responde 304 sem montar o DTO
+        Versionado<ArtistaDetalheDto> detalhe = service.buscarPorId(id, request::checkNotModified);
+        if (detalhe.corpo() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(detalhe.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(detalhe.etag()).body(detalhe.corpo());
     }
 
     // Endpoint para cadastrar um novo artista.
@@ -59,11 +82,14 @@ public class ArtistaController {
     }
 
     // Endpoint para atualizar dados de um artista existente.
+    // Com If-Match (ETag do GET), responde 412 se o artista foi alterado desde então.
     @PutMapping("/{id}")
     @Operation(summary = "Atualizar artista", description = "Atualiza dados de um artista existente")
     public ResponseEntity<ArtistaDetalheDto> atualizar(
             @PathVariable Long id,
-            @RequestBody @Valid ArtistaRequest request) {
-        return ResponseEntity.ok(service.atualizar(id, request));
+            @RequestBody @Valid ArtistaRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Versionado<ArtistaDetalheDto> atualizado = service.atualizar(id, request, ifMatch);
+        return ResponseEntity.ok().eTag(atualizado.etag()).body(atualizado.corpo());
     }
 }
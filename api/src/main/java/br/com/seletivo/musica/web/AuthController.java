@@ -1,6 +1,7 @@
 package br.com.seletivo.musica.web;
 
 import br.com.seletivo.musica.security.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,6 +10,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -16,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,10 +29,14 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
 
-    public AuthController(AuthenticationManager authenticationManager, JwtService jwtService) {
+    public AuthController(AuthenticationManager authenticationManager,
+                          JwtService jwtService,
+                          UserDetailsService userDetailsService) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
     }
 
     // Endpoint de login.
@@ -41,17 +49,16 @@ public class AuthController {
                     new UsernamePasswordAuthenticationToken(request.username(), request.password())
             );
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            
-            // Gera Token de Acesso (curta duração, ex: 5 min)
-            String accessToken = jwtService.generateAccessToken(userDetails.getUsername(), Map.of());
+
+            // Extrai roles do usuário para enviar ao front
+            String roles = roles(userDetails);
+
+            // Gera Token de Acesso (curta duração, ex: 5 min), já com os papéis:
+            // assim o filtro autentica as requisições sem consultar o banco
+            String accessToken = jwtService.generateAccessToken(userDetails.getUsername(), Map.of(JwtService.CLAIM_ROLES, roles));
             // Gera Token de Refresh (longa duração, ex: 24h) para obter novos access tokens sem logar de novo
             String refreshToken = jwtService.generateRefreshToken(userDetails.getUsername());
-            
-            // Extrai roles do usuário para enviar ao front
-            String roles = userDetails.getAuthorities().stream()
-                    .map(GrantedAuthority::getAuthority)
-                    .collect(Collectors.joining(","));
-            
+
             UserDto userDto = new UserDto(userDetails.getUsername(), roles);
             
             return ResponseEntity.ok(new TokenResponse(accessToken, refreshToken, userDto));
@@ -65,13 +72,22 @@ public class AuthController {
     @PostMapping("/refresh")
     public ResponseEntity<TokenResponse> refresh(@RequestBody RefreshRequest request) {
         // Valida se o refresh token é autêntico e não expirou
-        if (!jwtService.isTokenValid(request.refreshToken())) {
+        Optional<Claims> claims = jwtService.parseValidClaims(request.refreshToken());
+        if (claims.isEmpty()) {
             return ResponseEntity.status(401).build();
         }
-        String username = jwtService.extractSubject(request.refreshToken());
-        
+        String username = claims.get().getSubject();
+
+        // Relê o usuário para que o novo access token traga os papéis atuais
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException ex) {
+            return ResponseEntity.status(401).build();
+        }
+
         // Gera novo par de tokens
-        String accessToken = jwtService.generateAccessToken(username, Map.of());
+        String accessToken = jwtService.generateAccessToken(username, Map.of(JwtService.CLAIM_ROLES, roles(userDetails)));
         String refreshToken = jwtService.generateRefreshToken(username);
         
         // No refresh, não precisamos retornar o user completo se o front não usa,
@@ -80,6 +96,12 @@ public class AuthController {
         return ResponseEntity.ok(new TokenResponse(accessToken, refreshToken, null));
     }
 
+    private static String roles(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+    }
+
     public record LoginRequest(
             @NotBlank String username,
             @NotBlank String password
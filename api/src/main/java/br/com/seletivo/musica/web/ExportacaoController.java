@@ -0,0 +1,36 @@
+package br.com.seletivo.musica.web;
+
+import br.com.seletivo.musica.service.ExportacaoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Controlador REST para exportação do catálogo completo.
+@RestController
+@RequestMapping("/api/v1/exportacoes")
+@Tag(name = "Exportação", description = "Exportação do catálogo de artistas e álbuns")
+public class ExportacaoController {
+
+    private final ExportacaoService service;
+
+    public ExportacaoController(ExportacaoService service) {
+        this.service = service;
+    }
+
+    // Endpoint para baixar todo o catálogo em NDJSON, sem paginação: uma linha por artista e uma por álbum,
+    // com os metadados das capas. Com "Accept-Encoding: gzip" a resposta sai comprimida.
+    // Exemplo: curl -H "Accept-Encoding: gzip" /api/v1/exportacoes | gunzip > catalogo.ndjson
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Exportar catálogo",
+            description = "Transmite artistas, álbuns e metadados das capas em NDJSON, lidos do banco por cursor")
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        // Roda fora da thread do Tomcat (spring.mvc.async.request-timeout limita a duração)
+        StreamingResponseBody corpo = service::exportar;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+}
@@ -1,10 +1,13 @@
 package br.com.seletivo.musica.web;
 
+import br.com.seletivo.musica.service.ParametroInvalidoException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.util.DisconnectedClientHelper;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -22,6 +25,19 @@ public class GlobalExceptionHandler {
         return buildError("Recurso não encontrado", HttpStatus.NOT_FOUND);
     }
 
+    // Captura parâmetros do cliente que não conseguimos interpretar (ex: cursor de paginação ou If-Match malformado)
+    @ExceptionHandler(ParametroInvalidoException.class)
+    public ResponseEntity<Object> handleBadRequest(ParametroInvalidoException ex) {
+        return buildError(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    // Captura edições concorrentes: If-Match de outra versão ou @Version alterada por outra transação
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handlePreconditionFailed(OptimisticLockingFailureException ex) {
+        return buildError("O recurso foi alterado por outra requisição; busque a versão atual e tente de novo",
+                HttpStatus.PRECONDITION_FAILED);
+    }
+
     // Captura erros de validação (ex: campos obrigatórios faltando)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Object> handleValidation(MethodArgumentNotValidException ex) {
@@ -42,6 +58,11 @@ public class GlobalExceptionHandler {
     // Captura erros gerais não tratados
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGeneral(Exception ex) {
+        // Cliente desconectou no meio de uma resposta em streaming (ex: exportação): não há a quem responder
+        if (DisconnectedClientHelper.isClientDisconnectedException(ex)) {
+            System.err.println("Cliente desconectou antes do fim da resposta: " + ex.getMessage());
+            return null;
+        }
         ex.printStackTrace(); // Loga no console
         return buildError("Erro interno no servidor: " + ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
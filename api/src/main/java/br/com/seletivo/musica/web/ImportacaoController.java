@@ -0,0 +1,74 @@
+package br.com.seletivo.musica.web;
+
+import br.com.seletivo.musica.dto.ImportacaoProgressoDto;
+import br.com.seletivo.musica.service.FormatoImportacao;
+import br.com.seletivo.musica.service.ImportacaoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// Controlador REST para importação em lote de artistas e álbuns.
+@RestController
+@RequestMapping("/api/v1/importacoes")
+@Tag(name = "Importação", description = "Importação em lote de artistas e álbuns")
+public class ImportacaoController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final ImportacaoService service;
+    private final ObjectMapper objectMapper;
+
+    public ImportacaoController(ImportacaoService service, ObjectMapper objectMapper) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+    }
+
+    // Endpoint para importar artistas e álbuns de um arquivo NDJSON ou CSV enviado como corpo (sem multipart).
+    // O corpo é lido enquanto chega; a resposta, também em NDJSON, traz os erros de linha, o progresso a cada
+    // lote gravado e um resumo no final.
+    // Exemplo: curl -X POST -H "Content-Type: text/csv" --data-binary @albuns.csv /api/v1/importacoes
+    @PostMapping(consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE}, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Importar artistas e álbuns",
+            description = "Cria os artistas que ainda não existem (pelo nome) e os álbuns de cada linha. "
+                    + "CSV com cabeçalho artista,tipo,titulo,anoLancamento ou NDJSON com os mesmos campos")
+    public ResponseEntity<StreamingResponseBody> importar(HttpServletRequest request) throws IOException {
+        FormatoImportacao formato = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE)) ? FormatoImportacao.CSV : FormatoImportacao.NDJSON;
+        Charset charset = request.getCharacterEncoding() == null
+                ? StandardCharsets.UTF_8 : Charset.forName(request.getCharacterEncoding());
+        Reader entrada = new InputStreamReader(request.getInputStream(), charset);
+
+        // Roda fora da thread do Tomcat (spring.mvc.async.request-timeout limita a duração)
+        StreamingResponseBody corpo = saida -> service.importar(entrada, formato, evento -> escrever(saida, evento));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+
+    private void escrever(OutputStream saida, Object evento) {
+        try {
+            saida.write(objectMapper.writeValueAsBytes(evento));
+            saida.write('\n');
+            // Erros de linha seguem no buffer; o progresso de cada lote vai logo para o cliente
+            if (evento instanceof ImportacaoProgressoDto) {
+                saida.flush();
+            }
+        } catch (IOException e) {
+            // Cliente desconectou: a exceção interrompe a importação depois do último lote gravado
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,35 +1,72 @@
 package br.com.seletivo.musica.web;
 
 import br.com.seletivo.musica.domain.Regional;
-import br.com.seletivo.musica.service.RegionalService;
+import br.com.seletivo.musica.dto.SincronizacaoRegionalExecucaoDto;
+import br.com.seletivo.musica.service.RegionaisSnapshot;
+import br.com.seletivo.musica.service.SincronizacaoRegionalAgendador;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.net.URI;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/regionais")
 @Tag(name = "Regionais", description = "Endpoints para sincronização e consulta de regionais")
 public class RegionalController {
 
-    private final RegionalService regionalService;
+    private final RegionaisSnapshot regionaisSnapshot;
+    private final SincronizacaoRegionalAgendador agendador;
 
-    public RegionalController(RegionalService regionalService) {
-        this.regionalService = regionalService;
+    public RegionalController(RegionaisSnapshot regionaisSnapshot, SincronizacaoRegionalAgendador agendador) {
+        this.regionaisSnapshot = regionaisSnapshot;
+        this.agendador = agendador;
     }
 
     @PostMapping("/sincronizar")
-    @Operation(summary = "Sincronizar Regionais", description = "Busca dados da API externa e sincroniza com a base local")
-    public ResponseEntity<Void> sincronizar() {
-        regionalService.sincronizar();
-        return ResponseEntity.ok().build();
+    @Operation(summary = "Sincronizar Regionais",
+            description = "Inicia a sincronização com a API externa em segundo plano e retorna o id da execução. "
+                    + "Se já houver uma em andamento, retorna a mesma.")
+    public ResponseEntity<SincronizacaoRegionalExecucaoDto> sincronizar() {
+        SincronizacaoRegionalExecucaoDto execucao = agendador.disparar("MANUAL");
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/regionais/sincronizacoes/" + execucao.id()))
+                .body(execucao);
+    }
+
+    @GetMapping("/sincronizacoes/{id}")
+    @Operation(summary = "Status da Sincronização", description = "Retorna o status e o resultado de uma execução da sincronização")
+    public ResponseEntity<SincronizacaoRegionalExecucaoDto> buscarSincronizacao(@PathVariable UUID id) {
+        return ResponseEntity.ok(agendador.buscar(id));
     }
 
     @GetMapping
-    @Operation(summary = "Listar Regionais Ativas", description = "Retorna lista de regionais ativas na base local")
-    public ResponseEntity<List<Regional>> listar() {
-        return ResponseEntity.ok(regionalService.findAllAtivos());
+    @Operation(summary = "Listar Regionais Ativas",
+            description = "Retorna lista de regionais ativas na base local. Responde 304 se o If-None-Match bater com o ETag atual.")
+    @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Regional.class))))
+    public ResponseEntity<byte[]> listar(WebRequest request) {
+        RegionaisSnapshot.Snapshot snapshot = regionaisSnapshot.obter();
+        // no-cache: o cliente pode guardar a resposta, mas revalida sempre com o ETag
+        if (request.checkNotModified(snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
     }
 }
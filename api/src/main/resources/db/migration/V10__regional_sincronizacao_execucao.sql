@@ -0,0 +1,17 @@
+-- Execuções (jobs) da sincronização de regionais. O endpoint de sincronização responde com o id e o status
+-- é consultado depois; como fica no banco, qualquer réplica responde.
+create table regional_sincronizacao_execucao (
+    id uuid primary key,
+    status varchar(20) not null,
+    gatilho varchar(20) not null,
+    data_solicitacao timestamp not null,
+    data_inicio timestamp,
+    data_fim timestamp,
+    alterada boolean,
+    criadas integer,
+    inativadas integer,
+    duracao_ms bigint,
+    erro varchar(1000)
+);
+
+create index idx_regional_sincronizacao_execucao_status on regional_sincronizacao_execucao (status, data_solicitacao);
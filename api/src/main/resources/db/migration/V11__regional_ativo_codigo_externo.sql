@@ -0,0 +1,3 @@
+-- Só as regionais ativas são consultadas por código externo (findFirstByCodigoExternoAndAtivoTrue e a
+-- comparação da sincronização); as inativas, que só crescem com o histórico, ficam fora do índice.
+create index idx_regional_ativo_codigo_externo on regional (codigo_externo) where ativo;
@@ -0,0 +1,4 @@
+-- Controle de concorrência otimista (@Version): cada alteração incrementa a versão, que também gera o ETag
+-- das respostas de detalhe e é conferida no If-Match das atualizações.
+alter table artista add column versao bigint not null default 0;
+alter table album add column versao bigint not null default 0;
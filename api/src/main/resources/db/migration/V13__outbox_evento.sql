@@ -0,0 +1,8 @@
+-- Outbox: eventos gravados na mesma transação que os originou (ex: álbum criado) e publicados depois do commit
+-- pelo relay (OutboxService). A linha só é removida depois da entrega ao broker, então a entrega é "pelo menos uma vez".
+create table outbox_evento (
+    id bigserial primary key,
+    tipo varchar(50) not null,
+    payload text not null,
+    data_criacao timestamp not null
+);
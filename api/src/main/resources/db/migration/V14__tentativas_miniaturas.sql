@@ -0,0 +1,3 @@
+-- Falhas não transitórias na geração das miniaturas de cada capa (ex: objeto ausente, imagem corrompida).
+-- O backfill pula as capas que chegaram ao limite de tentativas, para que não bloqueiem as seguintes.
+alter table album_capa add column tentativas_miniaturas integer not null default 0;
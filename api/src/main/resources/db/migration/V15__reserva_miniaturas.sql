@@ -0,0 +1,3 @@
+-- Reserva do backfill de miniaturas: a réplica que pega um lote marca as capas até esse instante,
+-- e as demais réplicas pulam essas capas enquanto a reserva vale
+alter table album_capa add column miniaturas_reservadas_ate timestamp;
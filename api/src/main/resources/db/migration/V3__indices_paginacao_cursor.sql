@@ -0,0 +1,5 @@
+-- Índices compostos que servem as consultas de paginação por cursor (keyset).
+-- A ordem das colunas acompanha o ORDER BY e a comparação de tupla usados nas consultas.
+create index idx_album_ano_id on album ((coalesce(ano_lancamento, 0)), id);
+create index idx_album_artista_ano_id on album (artista_id, (coalesce(ano_lancamento, 0)), id);
+create index idx_artista_nome_id on artista (nome, id);
@@ -0,0 +1,7 @@
+-- Busca por substring (ILIKE '%termo%') em nomes de artistas e títulos de álbuns.
+-- Índices B-tree não atendem padrões com curinga no início; os índices GIN de trigramas atendem
+-- ILIKE diretamente e também permitem ordenar por similarity().
+create extension if not exists pg_trgm;
+
+create index idx_artista_nome_trgm on artista using gin (nome gin_trgm_ops);
+create index idx_album_titulo_trgm on album using gin (titulo gin_trgm_ops);
@@ -0,0 +1,6 @@
+-- Larguras (px) das miniaturas já geradas para cada capa, separadas por vírgula (ex: '64,256,1024').
+-- null = ainda não processada; '' = processada, mas o arquivo não é uma imagem que saibamos reduzir.
+alter table album_capa add column miniaturas varchar(100);
+
+-- O backfill percorre só as capas pendentes, em ordem de ID
+create index idx_album_capa_sem_miniaturas on album_capa (id) where miniaturas is null;
@@ -0,0 +1,15 @@
+-- Capas endereçadas pelo conteúdo: o objeto no MinIO é nomeado pelo SHA-256 do arquivo,
+-- então a mesma imagem enviada para vários álbuns é armazenada uma única vez.
+alter table album_capa add column hash_sha256 varchar(64);
+
+create index idx_album_capa_hash on album_capa (hash_sha256);
+
+-- Um registro por objeto armazenado, com a quantidade de capas que o referenciam.
+-- Quando "referencias" chegar a zero o objeto pode ser removido do MinIO.
+create table capa_objeto (
+    hash_sha256 varchar(64) primary key,
+    objeto_minio varchar(300) not null,
+    tamanho_bytes bigint not null,
+    referencias integer not null,
+    data_criacao timestamp not null default now()
+);
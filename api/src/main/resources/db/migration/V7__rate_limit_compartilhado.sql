@@ -0,0 +1,9 @@
+-- Buckets do rate limit compartilhados entre as réplicas (rate-limit.store=postgres).
+-- UNLOGGED: sem WAL, escrita mais barata; num crash a tabela é esvaziada, o que só zera os limites.
+create unlogged table rate_limit_bucket (
+    chave varchar(300) primary key,
+    tokens double precision not null,
+    capacidade bigint not null,
+    recarga_por_segundo double precision not null,
+    atualizado_em timestamptz not null
+);
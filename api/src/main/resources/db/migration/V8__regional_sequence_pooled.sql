@@ -0,0 +1,3 @@
+-- A sincronização de regionais grava em lote: o Hibernate reserva blocos de 50 ids (otimizador pooled),
+-- então a sequence precisa avançar de 50 em 50.
+alter sequence regional_id_seq increment by 50;
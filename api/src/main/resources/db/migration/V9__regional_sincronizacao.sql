@@ -0,0 +1,12 @@
+-- Estado da sincronização com a API de regionais. Com o ETag/Last-Modified e o hash do último conteúdo,
+-- uma lista inalterada é descartada antes de ser comparada com a tabela regional.
+create table regional_sincronizacao (
+    origem varchar(500) primary key,
+    etag varchar(200),
+    last_modified varchar(100),
+    hash_sha256 varchar(64),
+    data_verificacao timestamp not null,
+    data_alteracao timestamp,
+    duracao_ms bigint not null,
+    linhas_alteradas integer not null
+);
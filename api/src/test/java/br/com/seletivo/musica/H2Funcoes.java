@@ -0,0 +1,48 @@
+package br.com.seletivo.musica;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Funções do PostgreSQL usadas nas consultas, reimplementadas para o H2 dos testes.
+ */
+public final class H2Funcoes {
+
+    private H2Funcoes() {
+    }
+
+    // Equivalente ao similarity() do pg_trgm: trigramas em comum / trigramas distintos.
+    public static double similarity(String a, String b) {
+        Set<String> trigramasA = trigramas(a);
+        Set<String> trigramasB = trigramas(b);
+        if (trigramasA.isEmpty() || trigramasB.isEmpty()) {
+            return 0;
+        }
+        Set<String> comuns = new HashSet<>(trigramasA);
+        comuns.retainAll(trigramasB);
+        return (double) comuns.size() / (trigramasA.size() + trigramasB.size() - comuns.size());
+    }
+
+    // Os testes rodam em uma única sessão: o bloqueio consultivo está sempre livre
+    public static boolean pgTryAdvisoryXactLock(long chave) {
+        return true;
+    }
+
+    private static Set<String> trigramas(String texto) {
+        Set<String> trigramas = new HashSet<>();
+        if (texto == null) {
+            return trigramas;
+        }
+        for (String palavra : texto.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (palavra.isEmpty()) {
+                continue;
+            }
+            String comBordas = "  " + palavra + " ";
+            for (int i = 0; i + 3 <= comBordas.length(); i++) {
+                trigramas.add(comBordas.substring(i, i + 3));
+            }
+        }
+        return trigramas;
+    }
+}
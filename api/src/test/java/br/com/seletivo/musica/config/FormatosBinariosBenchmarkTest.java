@@ -0,0 +1,114 @@
+package br.com.seletivo.musica.config;
+
+import br.com.seletivo.musica.dto.AlbumCapaDto;
+import br.com.seletivo.musica.dto.AlbumDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tamanho e custo de serialização de uma página de álbuns em JSON, CBOR e Smile, com e sem gzip.
+ * Não roda no build normal: mvn test -Dtest=FormatosBinariosBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FormatosBinariosBenchmarkTest {
+
+    private static final int AQUECIMENTO = 2_000;
+    private static final int ITERACOES = 10_000;
+
+    @Test
+    void tamanhoECustoPorFormato() throws IOException {
+        FormatosBinariosConfig config = new FormatosBinariosConfig();
+        Map<String, ObjectMapper> formatos = new LinkedHashMap<>();
+        formatos.put("json", Jackson2ObjectMapperBuilder.json().build());
+        formatos.put("cbor", config.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper());
+        formatos.put("smile", config.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper());
+
+        for (int tamanhoPagina : new int[]{10, 50}) {
+            Page<AlbumDto> pagina = pagina(tamanhoPagina);
+            long json = 0;
+            for (Map.Entry<String, ObjectMapper> formato : formatos.entrySet()) {
+                byte[] corpo = formato.getValue().writeValueAsBytes(pagina);
+                if (json == 0) {
+                    json = corpo.length;
+                }
+                double nanos = medir(formato.getValue(), pagina);
+                System.out.printf("Página de %d álbuns, %-5s: %7d bytes (%3.0f%% do JSON) | gzip %6d bytes | %,8.0f ns%n",
+                        tamanhoPagina, formato.getKey(), corpo.length, 100.0 * corpo.length / json, gzip(corpo), nanos);
+            }
+        }
+    }
+
+    // Como as páginas reais: duas capas por álbum, cada uma com as três miniaturas, todas com URL assinada
+    private static Page<AlbumDto> pagina(int tamanho) {
+        List<AlbumDto> albuns = new ArrayList<>();
+        for (long id = 1; id <= tamanho; id++) {
+            List<AlbumCapaDto> capas = new ArrayList<>();
+            for (long capa = 1; capa <= 2; capa++) {
+                String objeto = "albuns/" + id + "/" + (id * 10 + capa) + "-3f6c2a9e-8d41-4b7a-9c55-0e7d1b2a4f%s.jpg";
+                Map<Integer, String> miniaturas = new LinkedHashMap<>();
+                for (int largura : new int[]{64, 256, 1024}) {
+                    miniaturas.put(largura, urlAssinada(objeto.formatted("-" + largura)));
+                }
+                capas.add(new AlbumCapaDto(id * 10 + capa, urlAssinada(objeto.formatted("")), "image/jpeg", miniaturas));
+            }
+            albuns.add(new AlbumDto(id, "Álbum de teste número " + id, 1990 + (int) (id % 30), capas));
+        }
+        return new PageImpl<>(albuns, PageRequest.of(0, tamanho, Sort.by("anoLancamento")), 1_000);
+    }
+
+    private static String urlAssinada(String objeto) {
+        return "http://localhost:9000/albuns/" + objeto
+                + "?X-Amz-Algorithm=AWS4-HMAC-SHA256"
+                + "&X-Amz-Credential=minioadmin%2F20240510%2Fus-east-1%2Fs3%2Faws4_request"
+                + "&X-Amz-Date=20240510T120000Z&X-Amz-Expires=3600&X-Amz-SignedHeaders=host"
+                + "&X-Amz-Signature=" + assinatura(objeto);
+    }
+
+    // Cada URL tem a sua assinatura, o que limita o ganho do gzip como nas respostas reais
+    private static String assinatura(String objeto) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(objeto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double medir(ObjectMapper mapper, Page<AlbumDto> pagina) throws IOException {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            mapper.writeValueAsBytes(pagina);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACOES; i++) {
+            assertTrue(mapper.writeValueAsBytes(pagina).length > 0);
+        }
+        return (System.nanoTime() - inicio) / (double) ITERACOES;
+    }
+
+    private static int gzip(byte[] corpo) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(corpo);
+        }
+        return saida.size();
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.seletivo.musica.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Dois bancos H2 no lugar do primário e da réplica; cada um responde com o próprio nome
+class RoteamentoDataSourceTest {
+
+    private final AtomicLong agora = new AtomicLong();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate leitura;
+    private TransactionTemplate escrita;
+
+    @BeforeEach
+    void setUp() {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(banco("primario"), banco("replica"),
+                Duration.ofSeconds(2), new SimpleMeterRegistry(), agora::get);
+        roteamento.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(roteamento);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        escrita = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deveLerDaReplicaEEscreverNoPrimario() {
+        autenticar("ana");
+
+        assertEquals("replica", leitura.execute(status -> origem()));
+        assertEquals("primario", escrita.execute(status -> origem()));
+        // Fora de transação (ex: rate limit, Flyway)
+        assertEquals("primario", origem());
+    }
+
+    @Test
+    void deveLerDoPrimario_LogoAposUmaEscritaDoMesmoUsuario() {
+        autenticar("ana");
+        escrita.executeWithoutResult(status -> jdbcTemplate.update("update origem set escritas = escritas + 1"));
+
+        assertEquals("primario", leitura.execute(status -> origem()));
+
+        // Outros usuários continuam na réplica
+        autenticar("bia");
+        assertEquals("replica", leitura.execute(status -> origem()));
+
+        // Passada a janela, a réplica já alcançou o primário
+        autenticar("ana");
+        agora.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertEquals("replica", leitura.execute(status -> origem()));
+    }
+
+    @Test
+    void naoDeveDesviarLeituras_QuandoAEscritaForDesfeita() {
+        autenticar("ana");
+        escrita.executeWithoutResult(status -> {
+            jdbcTemplate.update("update origem set escritas = escritas + 1");
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", leitura.execute(status -> origem()));
+    }
+
+    @Test
+    void naoDeveDesviarLeituras_QuandoATransacaoDeEscritaNaoAlterarLinhas() {
+        autenticar("ana");
+        escrita.executeWithoutResult(status -> {
+            origem();
+            jdbcTemplate.update("update origem set escritas = escritas + 1 where nome = 'nenhum'");
+        });
+
+        assertEquals("replica", leitura.execute(status -> origem()));
+    }
+
+    @Test
+    void deveLerDoPrimario_AposEscritaEmLote() {
+        autenticar("ana");
+        escrita.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "update origem set escritas = escritas + 1", "update origem set escritas = escritas + 1"));
+
+        assertEquals("primario", leitura.execute(status -> origem()));
+    }
+
+    private String origem() {
+        return jdbcTemplate.queryForObject("select nome from origem", String.class);
+    }
+
+    private static void autenticar(String usuario) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario, null, List.of()));
+    }
+
+    private static DataSource banco(String nome) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:roteamento-" + nome + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table if not exists origem (nome varchar(20), escritas int)");
+        jdbc.update("delete from origem");
+        jdbc.update("insert into origem values (?, 0)", nome);
+        return dataSource;
+    }
+}
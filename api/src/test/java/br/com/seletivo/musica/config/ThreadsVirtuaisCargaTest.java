@@ -0,0 +1,138 @@
+package br.com.seletivo.musica.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rajada de uploads lentos (a espera pelo MinIO simulada com sleep) junto com leituras rápidas, no Tomcat com o
+ * pool padrão de 200 threads da plataforma e com threads virtuais, configurado como o Spring Boot faz com
+ * spring.threads.virtual.enabled=true. Compara a vazão de cada tipo de requisição e a latência das leituras.
+ * Não roda no build normal (e exige Java 21): mvn test -Dtest=ThreadsVirtuaisCargaTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class ThreadsVirtuaisCargaTest {
+
+    private static final int CLIENTES_UPLOAD = 400;
+    private static final int CLIENTES_LEITURA = 50;
+    private static final long ESPERA_UPLOAD_MS = 300;
+    private static final Duration DURACAO = Duration.ofSeconds(15);
+
+    @Test
+    void vazaoComThreadsDaPlataformaEVirtuais() throws Exception {
+        Resultado plataforma = executar(false);
+        Resultado virtuais = executar(true);
+
+        System.out.println("Threads da plataforma: " + plataforma);
+        System.out.println("Threads virtuais:      " + virtuais);
+        assertTrue(plataforma.leituras() > 0 && virtuais.leituras() > 0);
+    }
+
+    private Resultado executar(boolean threadsVirtuais) throws Exception {
+        TomcatServletWebServerFactory factory = new TomcatServletWebServerFactory(0);
+        if (threadsVirtuais) {
+            factory.addProtocolHandlerCustomizers(protocolHandler ->
+                    protocolHandler.setExecutor(new VirtualThreadExecutor("tomcat-handler-")));
+        }
+        WebServer servidor = factory.getWebServer(contexto ->
+                contexto.addServlet("carga", new CargaServlet()).addMapping("/*"));
+        servidor.start();
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES_UPLOAD + CLIENTES_LEITURA);
+        try {
+            String base = "http://localhost:" + servidor.getPort();
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            long fim = System.nanoTime() + DURACAO.toNanos();
+            AtomicLong uploads = new AtomicLong();
+            AtomicLong leituras = new AtomicLong();
+            List<Long> latencias = Collections.synchronizedList(new ArrayList<>());
+
+            for (int i = 0; i < CLIENTES_UPLOAD; i++) {
+                clientes.execute(() -> repetir(http, base + "/upload", fim, uploads, null));
+            }
+            for (int i = 0; i < CLIENTES_LEITURA; i++) {
+                clientes.execute(() -> repetir(http, base + "/leitura", fim, leituras, latencias));
+            }
+            clientes.shutdown();
+            clientes.awaitTermination(DURACAO.toSeconds() + 60, TimeUnit.SECONDS);
+
+            List<Long> ordenadas = new ArrayList<>(latencias);
+            Collections.sort(ordenadas);
+            long p99 = ordenadas.isEmpty() ? 0 : ordenadas.get((int) (ordenadas.size() * 0.99));
+            double segundos = DURACAO.toMillis() / 1000.0;
+            return new Resultado(uploads.get() / segundos, leituras.get() / segundos,
+                    TimeUnit.NANOSECONDS.toMillis(p99), leituras.get());
+        } finally {
+            clientes.shutdownNow();
+            servidor.stop();
+        }
+    }
+
+    private static void repetir(HttpClient http, String url, long fim, AtomicLong concluidas, List<Long> latencias) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).build();
+        while (System.nanoTime() < fim) {
+            long inicio = System.nanoTime();
+            try {
+                http.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            concluidas.incrementAndGet();
+            if (latencias != null) {
+                latencias.add(System.nanoTime() - inicio);
+            }
+        }
+    }
+
+    private record Resultado(double uploadsPorSegundo, double leiturasPorSegundo, long p99LeituraMs, long leituras) {
+
+        @Override
+        public String toString() {
+            return String.format("uploads %.0f/s | leituras %.0f/s | p99 das leituras %d ms",
+                    uploadsPorSegundo, leiturasPorSegundo, p99LeituraMs);
+        }
+    }
+
+    // /upload espera como um envio ao MinIO; qualquer outra rota responde na hora
+    private static class CargaServlet extends HttpServlet {
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            if (request.getRequestURI().startsWith("/upload")) {
+                try {
+                    Thread.sleep(ESPERA_UPLOAD_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            response.setContentType("text/plain");
+            response.getWriter().write("ok");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package br.com.seletivo.musica.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Canal com uma thread e fila de uma mensagem: a primeira fica presa no handler, a segunda na fila e a terceira é rejeitada
+class WebSocketMetricasTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final List<String> tratadas = new CopyOnWriteArrayList<>();
+    private ThreadPoolTaskExecutor pool;
+    private ThreadPoolTaskExecutor saida;
+    private ExecutorSubscribableChannel canal;
+    private WebSocketSession sessao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(1);
+        pool.setMaxPoolSize(1);
+        pool.setQueueCapacity(1);
+        pool.initialize();
+
+        SessoesWebSocket sessoes = new SessoesWebSocket();
+        sessao = mock(WebSocketSession.class);
+        when(sessao.getId()).thenReturn("s1");
+        sessoes.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(sessao);
+        saida = new ThreadPoolTaskExecutor();
+        saida.initialize();
+        new WebSocketMetricas(pool, saida, sessoes, meterRegistry);
+
+        canal = new ExecutorSubscribableChannel(pool);
+        canal.subscribe(mensagem -> {
+            if ("bloquear".equals(mensagem.getPayload())) {
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            tratadas.add((String) mensagem.getPayload());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        pool.shutdown();
+        saida.shutdown();
+    }
+
+    @Test
+    void filaCheia_DeveDescartarFrame_EFecharASessao_SemLancarExcecao() throws Exception {
+        assertTrue(canal.send(mensagem(SimpMessageType.MESSAGE, "bloquear")));
+        assertTrue(canal.send(mensagem(SimpMessageType.MESSAGE, "na fila")));
+        assertTrue(canal.send(mensagem(SimpMessageType.SUBSCRIBE, "descartada")));
+
+        assertEquals(1, meterRegistry.counter("websocket.frames.descartados", "canal", "entrada").count());
+        verify(sessao).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(tratadas.contains("descartada"));
+    }
+
+    @Test
+    void filaCheia_DeveEntregarDisconnect_NaThreadDeQuemEnviou() {
+        canal.send(mensagem(SimpMessageType.MESSAGE, "bloquear"));
+        canal.send(mensagem(SimpMessageType.MESSAGE, "na fila"));
+
+        canal.send(mensagem(SimpMessageType.DISCONNECT, "disconnect"));
+
+        assertEquals(List.of("disconnect"), tratadas);
+        assertEquals(0, meterRegistry.counter("websocket.frames.descartados", "canal", "entrada").count());
+    }
+
+    private static Message<String> mensagem(SimpMessageType tipo, String conteudo) {
+        SimpMessageHeaderAccessor cabecalhos = SimpMessageHeaderAccessor.create(tipo);
+        cabecalhos.setSessionId("s1");
+        return MessageBuilder.createMessage(conteudo, cabecalhos.getMessageHeaders());
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.seletivo.musica.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+
+    private JwtProperties properties;
+    private JwtService jwtService;
+    private UserDetailsService userDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        properties = JwtServiceTest.propriedades(JwtServiceTest.SEGREDO);
+        jwtService = new JwtService(properties, new SimpleMeterRegistry());
+        userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername("admin"))
+                .thenReturn(User.withUsername("admin").password("x").authorities("ROLE_USER").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deveAutenticarComOsPapeisDoToken_SemConsultarUsuario() throws Exception {
+        String token = jwtService.generateAccessToken("admin", Map.of(JwtService.CLAIM_ROLES, "ROLE_ADMIN"));
+
+        Authentication authentication = filtrar(new JwtAuthenticationFilter(jwtService, userDetailsService, properties), token);
+
+        assertEquals("admin", authentication.getName());
+        assertEquals(List.of("ROLE_ADMIN"), papeis(authentication));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void deveConsultarUsuario_QuandoTokenNaoTemPapeis() throws Exception {
+        String token = jwtService.generateAccessToken("admin", Map.of());
+
+        Authentication authentication = filtrar(new JwtAuthenticationFilter(jwtService, userDetailsService, properties), token);
+
+        assertEquals(List.of("ROLE_USER"), papeis(authentication));
+    }
+
+    @Test
+    void deveUsarPapeisDoBancoComCache_QuandoTtlConfigurado() throws Exception {
+        properties.setUserCacheTtlSeconds(30);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService, userDetailsService, properties);
+        String token = jwtService.generateAccessToken("admin", Map.of(JwtService.CLAIM_ROLES, "ROLE_ADMIN"));
+
+        Authentication primeira = filtrar(filter, token);
+        SecurityContextHolder.clearContext();
+        Authentication segunda = filtrar(filter, token);
+
+        assertEquals(List.of("ROLE_USER"), papeis(primeira));
+        assertEquals(List.of("ROLE_USER"), papeis(segunda));
+        verify(userDetailsService, times(1)).loadUserByUsername("admin");
+    }
+
+    @Test
+    void naoDeveAutenticarComRefreshToken() throws Exception {
+        String token = jwtService.generateRefreshToken("admin");
+
+        assertNull(filtrar(new JwtAuthenticationFilter(jwtService, userDetailsService, properties), token));
+    }
+
+    private static Authentication filtrar(JwtAuthenticationFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/artistas");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static List<String> papeis(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.seletivo.musica.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Custo da autenticação por requisição, antes e depois do cache de chave/parser e de tokens verificados.
+ * Não roda no build normal: mvn test -Dtest=JwtServiceBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtServiceBenchmarkTest {
+
+    private static final int AQUECIMENTO = 20_000;
+    private static final int ITERACOES = 200_000;
+
+    @Test
+    void custoPorRequisicao() {
+        JwtProperties properties = JwtServiceTest.propriedades(JwtServiceTest.SEGREDO);
+        properties.setVerifiedCacheSize(0);
+        JwtService semCache = new JwtService(properties, new SimpleMeterRegistry());
+        JwtService comCache = new JwtService(JwtServiceTest.propriedades(JwtServiceTest.SEGREDO), new SimpleMeterRegistry());
+        String token = comCache.generateAccessToken("admin", Map.of("roles", "ROLE_ADMIN"));
+
+        // Como era: chave e parser montados a cada chamada, e o token lido duas vezes (validar + extrair subject)
+        double antes = medir(token, t -> {
+            parseComoAntes(t);
+            return parseComoAntes(t);
+        });
+        double chavePronta = medir(token, t -> semCache.parseValidClaims(t).orElseThrow().getSubject());
+        double tokenEmCache = medir(token, t -> comCache.parseValidClaims(t).orElseThrow().getSubject());
+
+        System.out.printf("Autenticação por requisição: antes %.0f ns | chave e parser prontos %.0f ns | token em cache %.0f ns%n",
+                antes, chavePronta, tokenEmCache);
+    }
+
+    private static String parseComoAntes(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtServiceTest.SEGREDO)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody()
+                .getSubject();
+    }
+
+    private static double medir(String token, Function<String, String> autenticar) {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            autenticar.apply(token);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACOES; i++) {
+            assertEquals("admin", autenticar.apply(token));
+        }
+        return (System.nanoTime() - inicio) / (double) ITERACOES;
+    }
+}
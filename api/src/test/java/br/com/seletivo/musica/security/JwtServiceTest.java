@@ -0,0 +1,88 @@
+package br.com.seletivo.musica.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    static final String SEGREDO = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = new JwtService(propriedades(SEGREDO), meterRegistry);
+    }
+
+    @Test
+    void parseValidClaims_DeveRetornarClaimsDoToken() {
+        String token = jwtService.generateAccessToken("admin", Map.of("roles", "ROLE_ADMIN"));
+
+        Claims claims = jwtService.parseValidClaims(token).orElseThrow();
+
+        assertEquals("admin", claims.getSubject());
+        assertEquals("ROLE_ADMIN", claims.get("roles"));
+    }
+
+    @Test
+    void parseValidClaims_DeveReaproveitarTokenJaVerificado() {
+        String token = jwtService.generateAccessToken("admin", Map.of());
+
+        Claims primeira = jwtService.parseValidClaims(token).orElseThrow();
+        Claims segunda = jwtService.parseValidClaims(token).orElseThrow();
+
+        assertSame(primeira, segunda);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void parseValidClaims_DeveRejeitarTokenAdulterado() {
+        String token = jwtService.generateAccessToken("admin", Map.of());
+        String[] partes = token.split("\\.");
+        String adulterado = partes[0] + "." + partes[1] + "." + new StringBuilder(partes[2]).reverse();
+
+        assertEquals(Optional.empty(), jwtService.parseValidClaims(adulterado));
+    }
+
+    @Test
+    void parseValidClaims_DeveRejeitarTokenDeOutraChave() {
+        JwtService outro = new JwtService(propriedades(SEGREDO.replace('4', '5')), new SimpleMeterRegistry());
+        String token = outro.generateAccessToken("admin", Map.of());
+
+        assertEquals(Optional.empty(), jwtService.parseValidClaims(token));
+    }
+
+    @Test
+    void parseValidClaims_DeveRejeitarTokenExpirado() {
+        String token = Jwts.builder()
+                .setSubject("admin")
+                .setExpiration(Date.from(Instant.now().minusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SEGREDO)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals(Optional.empty(), jwtService.parseValidClaims(token));
+    }
+
+    static JwtProperties propriedades(String segredo) {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(segredo);
+        properties.setExpirationMinutes(5);
+        properties.setRefreshExpirationMinutes(30);
+        return properties;
+    }
+}
@@ -0,0 +1,153 @@
+package br.com.seletivo.musica.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roda contra um Postgres real, por exemplo o do docker-compose:
+ * mvn test -Dtest=PostgresRateLimitStoreTest -Dpostgres.url=jdbc:postgresql://localhost:5432/seletivo
+ * (usuário e senha padrão do docker-compose; sobrescreva com -Dpostgres.user e -Dpostgres.password)
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+class PostgresRateLimitStoreTest {
+
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("postgres.url"),
+                System.getProperty("postgres.user", "user"),
+                System.getProperty("postgres.password", "password"));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void duasReplicas_NaoDevemPassarDoLimiteGlobal() {
+        PostgresRateLimitStore replicaA = replica(0.1, 60_000);
+        PostgresRateLimitStore replicaB = replica(0.1, 60_000);
+        RateLimitProperties.Limite limite = limite(100);
+        String chave = "teste:" + UUID.randomUUID();
+
+        int permitidas = 0;
+        for (int i = 0; i < 150; i++) {
+            PostgresRateLimitStore replica = i % 2 == 0 ? replicaA : replicaB;
+            if (replica.consumir(chave, limite).permitido()) {
+                permitidas++;
+            }
+        }
+
+        assertEquals(100, permitidas);
+    }
+
+    @Test
+    void reservaExpirada_DeveDevolverTokensAoBanco() throws Exception {
+        PostgresRateLimitStore replicaA = replica(0.5, 100);
+        PostgresRateLimitStore replicaB = replica(0.5, 60_000);
+        RateLimitProperties.Limite limite = limite(10);
+        String chave = "teste:" + UUID.randomUUID();
+
+        // A reserva 5 tokens e usa 1; B só consegue os 5 que ficaram no banco
+        assertTrue(replicaA.consumir(chave, limite).permitido());
+        assertEquals(5, consumirTudo(replicaB, chave, limite));
+
+        Thread.sleep(150);
+        replicaA.expirarReservas();
+
+        // Os 4 que A não usou voltaram para o banco
+        assertEquals(4, consumirTudo(replicaB, chave, limite));
+
+        // Bucket vazio não é ocioso: continua no banco mesmo com ociosidade zero
+        replicaA.removerOciosos();
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from rate_limit_bucket where chave = ?", Integer.class, chave));
+    }
+
+    @Test
+    void configuracaoPadrao_NaoDeveIrAoBancoACadaRequisicao() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimitProperties properties = new RateLimitProperties();
+        PostgresRateLimitStore replica = new PostgresRateLimitStore(jdbcTemplate, properties, meterRegistry);
+        RateLimitProperties.Limite limite = new RateLimitProperties.Limite();
+        String chave = "teste:" + UUID.randomUUID();
+
+        int requisicoes = 10;
+        for (int i = 0; i < requisicoes; i++) {
+            assertTrue(replica.consumir(chave, limite).permitido());
+        }
+
+        double idasAoBanco = meterRegistry.counter("rate-limit.reservas").count();
+        assertTrue(idasAoBanco < requisicoes, "idas ao banco: " + idasAoBanco);
+    }
+
+    @Test
+    void renovacoesConcorrentes_NaoDevemPerderTokens() throws Exception {
+        PostgresRateLimitStore replica = replica(0.1, 1_000);
+        RateLimitProperties.Limite limite = limite(400);
+        String chave = "teste:" + UUID.randomUUID();
+
+        AtomicInteger permitidas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            tarefas.add(executor.submit(() -> {
+                for (int i = 0; i < 10; i++) {
+                    if (replica.consumir(chave, limite).permitido()) {
+                        permitidas.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        executor.shutdown();
+
+        // Depois que as reservas expiram, tudo o que não foi usado tem que estar de volta no banco
+        Thread.sleep(1_100);
+        replica.expirarReservas();
+        double noBanco = jdbcTemplate.queryForObject(
+                "select tokens from rate_limit_bucket where chave = ?", Double.class, chave);
+        assertEquals(400, permitidas.get() + (long) noBanco);
+    }
+
+    private static int consumirTudo(PostgresRateLimitStore replica, String chave, RateLimitProperties.Limite limite) {
+        int permitidas = 0;
+        while (replica.consumir(chave, limite).permitido()) {
+            permitidas++;
+        }
+        return permitidas;
+    }
+
+    private static PostgresRateLimitStore replica(double fracaoReserva, long validadeReservaMs) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setIdleEvictionSeconds(0);
+        properties.setLeaseFraction(fracaoReserva);
+        properties.setLeaseTtlMs(validadeReservaMs);
+        return new PostgresRateLimitStore(jdbcTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    // Recarga mínima, para que o teste não ganhe tokens enquanto roda
+    private static RateLimitProperties.Limite limite(long capacidade) {
+        RateLimitProperties.Limite limite = new RateLimitProperties.Limite();
+        limite.setCapacity(capacidade);
+        limite.setRefillPerMinute(1);
+        return limite;
+    }
+}
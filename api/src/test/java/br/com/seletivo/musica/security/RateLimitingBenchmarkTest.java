@@ -0,0 +1,93 @@
+package br.com.seletivo.musica.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+/**
+ * Vazão do rate limit sob contenção: várias threads disputando o mesmo usuário e usuários distintos,
+ * comparando o token bucket (CAS) com a janela fixa sincronizada usada antes.
+ * Não roda no build normal: mvn test -Dtest=RateLimitingBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RateLimitingBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERACOES_POR_THREAD = 2_000_000;
+
+    @Test
+    void vazaoSobContencao() throws Exception {
+        for (boolean mesmoUsuario : new boolean[]{true, false}) {
+            Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+            Map<String, JanelaFixa> janelas = new ConcurrentHashMap<>();
+            // Capacidade alta para medir o custo da verificação, e não o caminho de negação
+            double bucket = medir(t -> {
+                String chave = mesmoUsuario ? "usuario" : "usuario-" + t;
+                return () -> buckets.computeIfAbsent(chave, k -> new TokenBucket(1_000_000_000_000L, 1, System.nanoTime()))
+                        .tentarConsumir(System.nanoTime()).permitido();
+            });
+            double janela = medir(t -> {
+                String chave = mesmoUsuario ? "usuario" : "usuario-" + t;
+                return () -> janelas.computeIfAbsent(chave, k -> new JanelaFixa()).permitir(System.currentTimeMillis());
+            });
+            System.out.printf("%s, %d threads: token bucket %.1f M ops/s | janela sincronizada %.1f M ops/s%n",
+                    mesmoUsuario ? "Mesmo usuário" : "Usuários distintos", THREADS, bucket / 1e6, janela / 1e6);
+        }
+    }
+
+    private static double medir(IntFunction<Verificacao> porThread) throws Exception {
+        medirUmaVez(porThread);
+        return medirUmaVez(porThread);
+    }
+
+    private static double medirUmaVez(IntFunction<Verificacao> porThread) throws Exception {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Verificacao verificacao = porThread.apply(t);
+            Thread thread = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < OPERACOES_POR_THREAD; i++) {
+                    verificacao.permitir();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (double) THREADS * OPERACOES_POR_THREAD / ((System.nanoTime() - inicio) / 1e9);
+    }
+
+    private interface Verificacao {
+        boolean permitir();
+    }
+
+    // Implementação anterior do RateLimitingFilter, para comparação
+    private static class JanelaFixa {
+        long inicio;
+        int contagem;
+
+        synchronized boolean permitir(long agora) {
+            if (agora - inicio >= 60_000L) {
+                inicio = agora;
+                contagem = 0;
+            }
+            contagem++;
+            return true;
+        }
+    }
+}
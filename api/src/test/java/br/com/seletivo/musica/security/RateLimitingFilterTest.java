@@ -0,0 +1,90 @@
+package br.com.seletivo.musica.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingFilterTest {
+
+    private RateLimitingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getGroups().put("uploads", grupo(List.of("/api/v1/albuns/*/capas"), 2, Map.of("admin", limite(5))));
+        properties.getGroups().put("default", grupo(List.of("/**"), 3, Map.of()));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitingFilter(properties, new MemoriaRateLimitStore(properties, meterRegistry), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deveResponder429ComRetryAfter_QuandoEsgotarOLimite() throws Exception {
+        autenticar("usuario", "ROLE_USER");
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = requisitar("/api/v1/artistas");
+            assertEquals(200, response.getStatus());
+            assertEquals("3", response.getHeader("RateLimit-Limit"));
+            assertEquals(String.valueOf(2 - i), response.getHeader("RateLimit-Remaining"));
+        }
+
+        MockHttpServletResponse negada = requisitar("/api/v1/artistas");
+
+        assertEquals(429, negada.getStatus());
+        assertEquals("0", negada.getHeader("RateLimit-Remaining"));
+        assertEquals("20", negada.getHeader("Retry-After"));
+    }
+
+    @Test
+    void deveAplicarLimiteDoGrupoDaRota_ESobrescritaDoPapel() throws Exception {
+        autenticar("usuario", "ROLE_USER");
+        assertEquals("2", requisitar("/api/v1/albuns/1/capas").getHeader("RateLimit-Limit"));
+        assertEquals("3", requisitar("/api/v1/albuns").getHeader("RateLimit-Limit"));
+
+        autenticar("admin", "ROLE_ADMIN");
+        assertEquals("5", requisitar("/api/v1/albuns/1/capas").getHeader("RateLimit-Limit"));
+    }
+
+    private MockHttpServletResponse requisitar(String caminho) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", caminho), response, new MockFilterChain());
+        return response;
+    }
+
+    private static void autenticar(String usuario, String papel) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(usuario, null, AuthorityUtils.createAuthorityList(papel)));
+    }
+
+    private static RateLimitProperties.Grupo grupo(List<String> paths, long capacidade, Map<String, RateLimitProperties.Limite> roles) {
+        RateLimitProperties.Grupo grupo = new RateLimitProperties.Grupo();
+        grupo.setPaths(paths);
+        grupo.setCapacity(capacidade);
+        grupo.setRefillPerMinute(capacidade);
+        grupo.setRoles(roles);
+        return grupo;
+    }
+
+    private static RateLimitProperties.Limite limite(long capacidade) {
+        RateLimitProperties.Limite limite = new RateLimitProperties.Limite();
+        limite.setCapacity(capacidade);
+        limite.setRefillPerMinute(capacidade);
+        return limite;
+    }
+}
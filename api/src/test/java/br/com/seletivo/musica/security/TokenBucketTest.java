@@ -0,0 +1,84 @@
+package br.com.seletivo.musica.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SEGUNDO = 1_000_000_000L;
+
+    @Test
+    void deveLiberarRajadaAteACapacidade_ENegarDepois() {
+        TokenBucket bucket = new TokenBucket(10, 60, 0);
+
+        for (int i = 0; i < 10; i++) {
+            RateLimitStore.Consumo consumo = bucket.tentarConsumir(0);
+            assertTrue(consumo.permitido());
+            assertEquals(9 - i, consumo.restantes());
+        }
+        RateLimitStore.Consumo negado = bucket.tentarConsumir(0);
+
+        assertFalse(negado.permitido());
+        // 60 por minuto = 1 token por segundo
+        assertEquals(SEGUNDO, negado.nanosAteProximo());
+        assertEquals(10 * SEGUNDO, negado.nanosAteCheio());
+    }
+
+    @Test
+    void deveRecarregarNoRitmoConfigurado_SemPassarDaCapacidade() {
+        TokenBucket bucket = new TokenBucket(10, 60, 0);
+        for (int i = 0; i < 10; i++) {
+            bucket.tentarConsumir(0);
+        }
+
+        assertTrue(bucket.tentarConsumir(SEGUNDO).permitido());
+        assertFalse(bucket.tentarConsumir(SEGUNDO).permitido());
+        assertEquals(9, bucket.tentarConsumir(3600 * SEGUNDO).restantes());
+    }
+
+    @Test
+    void deveSerDescartavelSoQuandoOciosoECheio() {
+        TokenBucket bucket = new TokenBucket(10, 60, 0);
+        bucket.tentarConsumir(0);
+
+        assertFalse(bucket.ociosoECheio(SEGUNDO / 2, 0));
+        assertFalse(bucket.ociosoECheio(2 * SEGUNDO, 600 * SEGUNDO));
+        assertTrue(bucket.ociosoECheio(600 * SEGUNDO, 600 * SEGUNDO));
+    }
+
+    @Test
+    void naoDeveLiberarMaisQueACapacidade_ComThreadsConcorrentes() throws Exception {
+        TokenBucket bucket = new TokenBucket(1000, 1, 0);
+        AtomicInteger permitidas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tentarConsumir(0).permitido()) {
+                        permitidas.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        largada.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, permitidas.get());
+    }
+}
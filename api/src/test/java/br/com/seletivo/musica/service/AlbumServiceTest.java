@@ -0,0 +1,216 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.domain.Album;
+import br.com.seletivo.musica.domain.AlbumCapa;
+import br.com.seletivo.musica.domain.Artista;
+import br.com.seletivo.musica.dto.AlbumDto;
+import br.com.seletivo.musica.dto.CursorPage;
+import br.com.seletivo.musica.repository.AlbumCapaRepository;
+import br.com.seletivo.musica.repository.AlbumRepository;
+import br.com.seletivo.musica.repository.ArtistaRepository;
+import br.com.seletivo.musica.storage.MinioService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AlbumServiceTest {
+
+    private static final int TOTAL_ALBUNS = 30;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private AlbumCapaRepository albumCapaRepository;
+
+    @Autowired
+    private ArtistaRepository artistaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private AlbumService albumService;
+    private Artista artista;
+
+    @BeforeEach
+    void setUp() {
+        MinioService minioService = mock(MinioService.class);
+        when(minioService.inicioJanelaAtual()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        albumService = new AlbumService(albumRepository, albumCapaRepository, artistaRepository,
+                minioService, mock(OutboxService.class));
+
+        artista = new Artista();
+        artista.setNome("Artista de Teste");
+        artista.setTipo("BANDA");
+        artistaRepository.save(artista);
+
+        for (int i = 0; i < TOTAL_ALBUNS; i++) {
+            Album album = new Album();
+            album.setArtista(artista);
+            album.setTitulo("Album " + i);
+            album.setAnoLancamento(2000 + i);
+            albumRepository.save(album);
+
+            for (int j = 0; j < 2; j++) {
+                AlbumCapa capa = new AlbumCapa();
+                capa.setAlbum(album);
+                capa.setObjetoMinio("album/" + album.getId() + "/capa-" + j);
+                capa.setContentType("image/png");
+                capa.setTamanhoBytes(10L);
+                albumCapaRepository.save(capa);
+            }
+        }
+
+        // Garante que a listagem leia tudo do banco, e não do contexto de persistência
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void listar_DeveExecutarQuantidadeFixaDeConsultas_IndependenteDoTamanhoDaPagina() {
+        long consultasPaginaPequena = contarConsultas(() -> albumService.listar(null, null, null, pagina(5)));
+        long consultasPaginaGrande = contarConsultas(() -> albumService.listar(null, null, null, pagina(20)));
+
+        // Página + count + capas de toda a página
+        assertEquals(3, consultasPaginaPequena);
+        assertEquals(consultasPaginaPequena, consultasPaginaGrande);
+    }
+
+    @Test
+    void listarPorArtista_DeveExecutarQuantidadeFixaDeConsultas_IndependenteDoTamanhoDaPagina() {
+        long consultasPaginaPequena = contarConsultas(() -> albumService.listar(artista.getId(), null, null, pagina(5)));
+        long consultasPaginaGrande = contarConsultas(() -> albumService.listar(artista.getId(), null, null, pagina(20)));
+
+        assertEquals(consultasPaginaPequena, consultasPaginaGrande);
+    }
+
+    @Test
+    void listarPorNomeArtista_DeveExecutarQuantidadeFixaDeConsultas_IndependenteDoTamanhoDaPagina() {
+        long consultasPaginaPequena = contarConsultas(() -> albumService.listar(null, "teste", null, pagina(5)));
+        long consultasPaginaGrande = contarConsultas(() -> albumService.listar(null, "teste", null, pagina(20)));
+
+        assertEquals(consultasPaginaPequena, consultasPaginaGrande);
+    }
+
+    @Test
+    void listar_DeveTrazerAsCapasDeCadaAlbum() {
+        Page<AlbumDto> page = albumService.listar(null, null, null, pagina(10));
+
+        assertEquals(10, page.getContent().size());
+        assertEquals(TOTAL_ALBUNS, page.getTotalElements());
+        page.getContent().forEach(album -> assertEquals(2, album.capas().size()));
+    }
+
+    @Test
+    void listarPorTitulo_DeveTrazerOsMaisParecidosPrimeiro() {
+        Page<AlbumDto> page = albumService.listar(null, null, "album 2", PageRequest.of(0, 5));
+
+        // "Album 2" é o mais parecido; "Album 20".."Album 29" também contêm o termo
+        assertEquals(11, page.getTotalElements());
+        assertEquals("Album 2", page.getContent().get(0).titulo());
+    }
+
+    @Test
+    void listarPorTitulo_DeveTratarCuringasComoTextoLiteral() {
+        Page<AlbumDto> page = albumService.listar(null, null, "%", PageRequest.of(0, 5));
+
+        assertEquals(0, page.getTotalElements());
+    }
+
+    @Test
+    void listarPorCursor_DevePercorrerTodosOsAlbuns_SemRepetir() {
+        List<String> titulos = new ArrayList<>();
+        String cursor = "";
+        int paginas = 0;
+        do {
+            CursorPage<AlbumDto> page = albumService.listarPorCursor(null, null, null, cursor, 7);
+            page.content().forEach(album -> titulos.add(album.titulo()));
+            cursor = page.nextCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(5, paginas);
+        assertEquals(TOTAL_ALBUNS, titulos.size());
+        assertEquals(TOTAL_ALBUNS, titulos.stream().distinct().count());
+        assertEquals("Album 0", titulos.get(0));
+        assertEquals("Album 29", titulos.get(TOTAL_ALBUNS - 1));
+    }
+
+    @Test
+    void listarPorCursor_DeveFiltrarPorTitulo() {
+        List<String> titulos = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            CursorPage<AlbumDto> page = albumService.listarPorCursor(null, null, "album 2", cursor, 4);
+            page.content().forEach(album -> titulos.add(album.titulo()));
+            cursor = page.nextCursor();
+        }
+
+        // "Album 2" e "Album 20".."Album 29", sem repetir
+        assertEquals(11, titulos.size());
+        assertEquals(11, titulos.stream().distinct().count());
+        assertTrue(titulos.stream().allMatch(titulo -> titulo.startsWith("Album 2")));
+    }
+
+    @Test
+    void listarPorCursor_DeveExecutarQuantidadeFixaDeConsultas_SemCount() {
+        CursorPage<AlbumDto> primeira = albumService.listarPorCursor(artista.getId(), null, null, "", 5);
+
+        long consultas = contarConsultas(() -> albumService.listarPorCursor(artista.getId(), null, null, primeira.nextCursor(), 20));
+
+        // Página + capas da página
+        assertEquals(2, consultas);
+    }
+
+    @Test
+    void listarPorCursor_DeveRejeitarCursorInvalido() {
+        assertThrows(ParametroInvalidoException.class, () -> albumService.listarPorCursor(null, null, null, "nao-e-um-cursor", 5));
+    }
+
+    @Test
+    void uploadCapas_DeveMudarOEtagDoAlbum_MesmoSemAlterarSeusCampos() {
+        Long id = albumRepository.findAll().get(0).getId();
+        String antes = albumService.etag(id);
+
+        albumService.uploadCapas(id, List.of());
+        entityManager.flush();
+
+        assertNotEquals(antes, albumService.etag(id));
+    }
+
+    private long contarConsultas(Runnable acao) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        acao.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static PageRequest pagina(int tamanho) {
+        return PageRequest.of(0, tamanho, Sort.by("anoLancamento"));
+    }
+}
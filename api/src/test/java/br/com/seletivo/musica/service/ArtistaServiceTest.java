@@ -0,0 +1,211 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.domain.Album;
+import br.com.seletivo.musica.domain.Artista;
+import br.com.seletivo.musica.dto.AlbumDto;
+import br.com.seletivo.musica.dto.ArtistaDetalheDto;
+import br.com.seletivo.musica.dto.ArtistaRequest;
+import br.com.seletivo.musica.dto.ArtistaResumoDto;
+import br.com.seletivo.musica.dto.CursorPage;
+import br.com.seletivo.musica.dto.Versionado;
+import br.com.seletivo.musica.repository.AlbumCapaRepository;
+import br.com.seletivo.musica.repository.AlbumRepository;
+import br.com.seletivo.musica.repository.ArtistaRepository;
+import br.com.seletivo.musica.storage.MinioService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ArtistaServiceTest {
+
+    @Autowired
+    private ArtistaRepository artistaRepository;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private AlbumCapaRepository albumCapaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ArtistaService artistaService;
+    private AlbumService albumService;
+
+    @BeforeEach
+    void setUp() {
+        MinioService minioService = mock(MinioService.class);
+        when(minioService.inicioJanelaAtual()).thenReturn(Instant.parse("2025-01-01T00:00:00Z"));
+        albumService = new AlbumService(albumRepository, albumCapaRepository, artistaRepository,
+                minioService, mock(OutboxService.class));
+        artistaService = new ArtistaService(artistaRepository, albumRepository, albumService, minioService);
+
+        criarArtista("Banda Prolífica", 40);
+        criarArtista("Banda Estreante", 1);
+        criarArtista("Solo Sem Álbuns", 0);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void listar_DeveAgregarQuantidadeDeAlbuns_SemCarregarOsAlbuns() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<ArtistaResumoDto> page = artistaService.listar(null, PageRequest.of(0, 10, Sort.by("nome")));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(1, page.getContent().get(0).quantidadeAlbuns());
+        assertEquals(40, page.getContent().get(1).quantidadeAlbuns());
+        assertEquals(0, page.getContent().get(2).quantidadeAlbuns());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void listar_DeveFiltrarPorNome_IgnorandoMaiusculas() {
+        Page<ArtistaResumoDto> page = artistaService.listar("banda", PageRequest.of(0, 10, Sort.by("nome")));
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals("Banda Estreante", page.getContent().get(0).nome());
+    }
+
+    @Test
+    void listarPorCursor_DevePaginarPorNome_ComQuantidadeDeAlbuns() {
+        CursorPage<ArtistaResumoDto> primeira = artistaService.listarPorCursor(null, "", 2);
+        CursorPage<ArtistaResumoDto> segunda = artistaService.listarPorCursor(null, primeira.nextCursor(), 2);
+
+        assertEquals(2, primeira.content().size());
+        assertEquals("Banda Estreante", primeira.content().get(0).nome());
+        assertEquals(40, primeira.content().get(1).quantidadeAlbuns());
+        assertEquals(1, segunda.content().size());
+        assertEquals("Solo Sem Álbuns", segunda.content().get(0).nome());
+        assertNull(segunda.nextCursor());
+    }
+
+    @Test
+    void buscarPorId_DeveEmbutirSoAPrimeiraPaginaDeAlbuns_EmQuantidadeFixaDeConsultas() {
+        Long id = idDoArtista("Banda Prolífica");
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ArtistaDetalheDto detalhe = artistaService.buscarPorId(id, etag -> false).corpo();
+
+        // Versões (ETag) + artista + página de álbuns + capas da página + count
+        assertEquals(5, statistics.getPrepareStatementCount());
+        assertEquals(ArtistaService.ALBUNS_NO_DETALHE, detalhe.albuns().size());
+        assertEquals(40, detalhe.quantidadeAlbuns());
+
+        // O restante vem pelo cursor da listagem de álbuns
+        CursorPage<AlbumDto> resto = albumService.listarPorCursor(id, null, null, detalhe.albunsNextCursor(), 100);
+        assertEquals(20, resto.content().size());
+        assertNull(resto.nextCursor());
+        assertTrue(resto.content().stream().noneMatch(detalhe.albuns()::contains));
+    }
+
+    @Test
+    void buscarPorId_NaoDeveTrazerCursor_QuandoTodosOsAlbunsCouberemNaPagina() {
+        ArtistaDetalheDto detalhe = artistaService.buscarPorId(idDoArtista("Banda Estreante"), etag -> false).corpo();
+
+        assertEquals(1, detalhe.albuns().size());
+        assertEquals(1, detalhe.quantidadeAlbuns());
+        assertNull(detalhe.albunsNextCursor());
+    }
+
+    @Test
+    void etag_DeveMudar_QuandoArtistaOuAlbunsMudarem_SemCarregarEntidades() {
+        Long id = idDoArtista("Banda Estreante");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        String inicial = artistaService.etag(id);
+
+        assertTrue(inicial.startsWith("W/\""));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        Album album = new Album();
+        album.setArtista(artistaRepository.findById(id).orElseThrow());
+        album.setTitulo("Segundo Álbum");
+        albumRepository.saveAndFlush(album);
+        String comNovoAlbum = artistaService.etag(id);
+        assertNotEquals(inicial, comNovoAlbum);
+
+        String atualizado = artistaService.atualizar(id, new ArtistaRequest("Banda Estreante", "SOLO"), comNovoAlbum).etag();
+        assertNotEquals(comNovoAlbum, atualizado);
+        entityManager.flush();
+        assertEquals(atualizado, artistaService.etag(id));
+    }
+
+    @Test
+    void buscarPorId_NaoDeveMontarDetalhe_QuandoEtagCasar() {
+        Long id = idDoArtista("Banda Prolífica");
+        String etag = artistaService.etag(id);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Versionado<ArtistaDetalheDto> naoModificado = artistaService.buscarPorId(id, etag::equals);
+
+        assertEquals(etag, naoModificado.etag());
+        assertNull(naoModificado.corpo());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(etag, artistaService.buscarPorId(id, outro -> false).etag());
+    }
+
+    @Test
+    void atualizar_DeveFalhar_QuandoIfMatchForDeOutraVersao() {
+        Long id = artistaRepository.findAll().get(0).getId();
+        String etag = artistaService.etag(id);
+        artistaService.atualizar(id, new ArtistaRequest("Novo Nome", "BANDA"), etag);
+        entityManager.flush();
+
+        // Mesmo ETag de antes: outra pessoa já salvou a versão seguinte
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> artistaService.atualizar(id, new ArtistaRequest("Outro Nome", "BANDA"), etag));
+        assertEquals("Novo Nome", artistaRepository.findById(id).orElseThrow().getNome());
+    }
+
+    private Long idDoArtista(String nome) {
+        return artistaRepository.findAll().stream()
+                .filter(a -> a.getNome().equals(nome))
+                .findFirst().orElseThrow().getId();
+    }
+
+    private void criarArtista(String nome, int quantidadeAlbuns) {
+        Artista artista = new Artista();
+        artista.setNome(nome);
+        artista.setTipo("BANDA");
+        artistaRepository.save(artista);
+        for (int i = 0; i < quantidadeAlbuns; i++) {
+            Album album = new Album();
+            album.setArtista(artista);
+            album.setTitulo(nome + " " + i);
+            albumRepository.save(album);
+        }
+    }
+}
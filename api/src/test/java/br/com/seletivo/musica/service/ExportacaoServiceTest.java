@@ -0,0 +1,122 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.domain.Album;
+import br.com.seletivo.musica.domain.AlbumCapa;
+import br.com.seletivo.musica.domain.Artista;
+import br.com.seletivo.musica.repository.AlbumCapaRepository;
+import br.com.seletivo.musica.repository.AlbumRepository;
+import br.com.seletivo.musica.repository.ArtistaRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ExportacaoServiceTest {
+
+    @Autowired
+    private ArtistaRepository artistaRepository;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private AlbumCapaRepository albumCapaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void exportar_DeveEscreverCadaArtistaSeguidoDosSeusAlbunsComAsCapas() throws IOException {
+        Artista serj = artista("Serj Tankian");
+        Album toxicity = album(serj, "Toxicity", 2001);
+        album(serj, "Demo", null);
+        capa(toxicity, "capas/a.png", "64,256");
+        capa(toxicity, "capas/b.png", null);
+        artista("Artista sem álbuns");
+        // A exportação lê pelo JDBC, não pelo contexto de persistência
+        entityManager.flush();
+
+        List<JsonNode> linhas = exportar();
+
+        assertEquals(4, linhas.size());
+        assertEquals("Serj Tankian", linhas.get(0).path("artista").path("nome").asText());
+        // Álbuns sem ano primeiro, como na listagem do artista
+        assertEquals("Demo", linhas.get(1).path("album").path("titulo").asText());
+        assertTrue(linhas.get(1).path("album").path("anoLancamento").isNull());
+        assertEquals(0, linhas.get(1).path("album").path("capas").size());
+
+        JsonNode album = linhas.get(2).path("album");
+        assertEquals(toxicity.getId(), album.path("id").asLong());
+        assertEquals(serj.getId(), album.path("artistaId").asLong());
+        assertEquals(2001, album.path("anoLancamento").asInt());
+        assertEquals(2, album.path("capas").size());
+        assertEquals("capas/a.png", album.path("capas").get(0).path("objeto").asText());
+        assertEquals("[64,256]", album.path("capas").get(0).path("miniaturas").toString());
+        assertTrue(album.path("capas").get(1).path("miniaturas").isNull());
+
+        assertEquals("Artista sem álbuns", linhas.get(3).path("artista").path("nome").asText());
+    }
+
+    private List<JsonNode> exportar() throws IOException {
+        ExportacaoService service = new ExportacaoService(jdbcTemplate, transactionManager, objectMapper,
+                new SimpleMeterRegistry());
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        service.exportar(saida);
+        List<JsonNode> linhas = new ArrayList<>();
+        for (String linha : saida.toString(StandardCharsets.UTF_8).split("\n")) {
+            linhas.add(objectMapper.readTree(linha));
+        }
+        return linhas;
+    }
+
+    private Artista artista(String nome) {
+        Artista artista = new Artista();
+        artista.setNome(nome);
+        artista.setTipo("SOLO");
+        return artistaRepository.save(artista);
+    }
+
+    private Album album(Artista artista, String titulo, Integer ano) {
+        Album album = new Album();
+        album.setArtista(artista);
+        album.setTitulo(titulo);
+        album.setAnoLancamento(ano);
+        return albumRepository.save(album);
+    }
+
+    private void capa(Album album, String objeto, String miniaturas) {
+        AlbumCapa capa = new AlbumCapa();
+        capa.setAlbum(album);
+        capa.setObjetoMinio(objeto);
+        capa.setContentType("image/png");
+        capa.setTamanhoBytes(10L);
+        capa.setMiniaturas(miniaturas);
+        albumCapaRepository.save(capa);
+    }
+}
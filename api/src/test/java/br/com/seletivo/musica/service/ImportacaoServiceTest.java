@@ -0,0 +1,154 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.dto.ImportacaoErroDto;
+import br.com.seletivo.musica.dto.ImportacaoProgressoDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * O insert de artistas usa "on conflict do nothing", que o H2 não tem; por isso roda contra um Postgres real:
+ * mvn test -Dtest=ImportacaoServiceTest -Dpostgres.url=jdbc:postgresql://localhost:5432/seletivo
+ * (usuário e senha padrão do docker-compose; sobrescreva com -Dpostgres.user e -Dpostgres.password)
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+class ImportacaoServiceTest {
+
+    private static DriverManagerDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    // Nomes únicos por teste: o banco é compartilhado entre execuções
+    private final String prefixo = UUID.randomUUID() + " ";
+    private final List<Object> eventos = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new DriverManagerDataSource(
+                System.getProperty("postgres.url"),
+                System.getProperty("postgres.user", "user"),
+                System.getProperty("postgres.password", "password"));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void importar_DeveCriarCadaArtistaUmaVez_ComNomesRepetidosNoLoteEEntreLotes() {
+        jdbcTemplate.update("insert into artista (nome, tipo) values (?, 'SOLO')", prefixo + "Existente");
+
+        // Lotes de 3: [A, A, B] [Existente, C sem título, B] [A]
+        ImportacaoProgressoDto resumo = importar(3, """
+                {"artista":"%1$sA","tipo":"BANDA","titulo":"A1","anoLancamento":2001}
+                {"artista":"%1$sA","tipo":"SOLO","titulo":"A2"}
+                {"artista":"%1$sB","titulo":"B1"}
+                {"artista":"%1$sExistente","tipo":"BANDA","titulo":"E1"}
+                {"artista":"%1$sC","tipo":"BANDA"}
+                {"artista":"%1$sB","titulo":"B2"}
+                {"artista":"%1$sA","titulo":"A3"}
+                """.formatted(prefixo));
+
+        assertEquals(new ImportacaoProgressoDto(ImportacaoService.RESUMO, 7, 3, 6, 0, resumo.duracaoMs()), resumo);
+        assertEquals(4, contar("select count(*) from artista where nome like ?", prefixo + "%"));
+        assertEquals(3, albunsDe("A"));
+        assertEquals(2, albunsDe("B"));
+        assertEquals(1, albunsDe("Existente"));
+        assertEquals(0, albunsDe("C"));
+        // O tipo vem da primeira linha do artista; um artista que já existia não é alterado
+        assertEquals("BANDA", tipoDe("A"));
+        assertEquals("SOLO", tipoDe("Existente"));
+
+        // Um evento de progresso por lote, com os totais acumulados, e o resumo por último
+        assertEquals(List.of(
+                new ImportacaoProgressoDto(ImportacaoService.PROGRESSO, 3, 2, 3, 0, null),
+                new ImportacaoProgressoDto(ImportacaoService.PROGRESSO, 6, 3, 5, 0, null),
+                new ImportacaoProgressoDto(ImportacaoService.PROGRESSO, 7, 3, 6, 0, null),
+                resumo), eventos);
+    }
+
+    @Test
+    void importar_DeveManterOsLotesAnteriores_QuandoUmLoteFalharNoMeio() {
+        // Lotes de 2: o segundo cria D e então falha no título com um caractere nulo, que passa pelo leitor
+        // mas o PostgreSQL recusa em colunas de texto
+        ImportacaoProgressoDto resumo = importar(2, """
+                {"artista":"%1$sA","titulo":"A1"}
+                {"artista":"%1$sA","titulo":"A2"}
+                {"artista":"%1$sD","titulo":"D1"}
+                {"artista":"%1$sD","titulo":"D\\u0000"}
+                {"artista":"%1$sA","titulo":"A3"}
+                """.formatted(prefixo));
+
+        assertEquals(ImportacaoService.FALHA, resumo.tipo());
+        assertEquals(1, resumo.artistasCriados());
+        assertEquals(2, resumo.albunsCriados());
+        assertEquals(2, albunsDe("A"));
+        // O lote que falhou foi desfeito por inteiro, inclusive o artista criado nele
+        assertEquals(0, contar("select count(*) from artista where nome = ?", prefixo + "D"));
+
+        ImportacaoErroDto falha = (ImportacaoErroDto) eventos.get(1);
+        assertEquals(ImportacaoService.FALHA, falha.tipo());
+        assertEquals(4, falha.linha());
+        assertEquals(resumo, eventos.get(eventos.size() - 1));
+    }
+
+    @Test
+    void importar_DeveResolverOId_QuandoOutraTransacaoCriarOArtistaEntreABuscaEOInsert() throws Exception {
+        // Outra transação insere o mesmo nome e segura o commit: o insert da importação espera por ela
+        // e, com o conflito, não cria nada; o id vem da segunda busca
+        try (Connection outra = dataSource.getConnection()) {
+            outra.setAutoCommit(false);
+            try (var comando = outra.prepareStatement("insert into artista (nome, tipo) values (?, 'SOLO')")) {
+                comando.setString(1, prefixo + "Concorrente");
+                comando.executeUpdate();
+            }
+            CompletableFuture<ImportacaoProgressoDto> importacao = CompletableFuture.supplyAsync(() -> importar(10, """
+                    {"artista":"%1$sConcorrente","tipo":"BANDA","titulo":"C1"}
+                    """.formatted(prefixo)));
+            Thread.sleep(500);
+            assertFalse(importacao.isDone());
+            outra.commit();
+
+            ImportacaoProgressoDto resumo = importacao.get();
+            assertEquals(ImportacaoService.RESUMO, resumo.tipo());
+            assertEquals(1, resumo.albunsCriados());
+        }
+        assertEquals(1, contar("select count(*) from artista where nome = ?", prefixo + "Concorrente"));
+        assertEquals(1, albunsDe("Concorrente"));
+        assertEquals("SOLO", tipoDe("Concorrente"));
+    }
+
+    private ImportacaoProgressoDto importar(int tamanhoLote, String ndjson) {
+        ImportacaoProperties properties = new ImportacaoProperties();
+        properties.setBatchSize(tamanhoLote);
+        ImportacaoService service = new ImportacaoService(new NamedParameterJdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource), new ObjectMapper(), properties, new SimpleMeterRegistry());
+        return service.importar(new StringReader(ndjson), FormatoImportacao.NDJSON, eventos::add);
+    }
+
+    private long albunsDe(String artista) {
+        return contar("select count(*) from album a join artista r on r.id = a.artista_id where r.nome = ?",
+                prefixo + artista);
+    }
+
+    private String tipoDe(String artista) {
+        return jdbcTemplate.queryForObject("select tipo from artista where nome = ?", String.class, prefixo + artista);
+    }
+
+    private long contar(String sql, String parametro) {
+        return jdbcTemplate.queryForObject(sql, Long.class, parametro);
+    }
+}
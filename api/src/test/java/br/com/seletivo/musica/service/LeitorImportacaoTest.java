@@ -0,0 +1,64 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.dto.LinhaImportacao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeitorImportacaoTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void ler_DeveConverterCsvPeloCabecalho_ComCamposEntreAspas() throws IOException {
+        LeitorImportacao leitor = leitor(FormatoImportacao.CSV, """
+                titulo,artista,anoLancamento,tipo
+                "Toxicity",System of a Down,2001,BANDA
+
+                "Mezmerize, Hypnotize","System of a Down",,
+                "Diga ""Olá""
+                (ao vivo)",Serj Tankian,2010,SOLO
+                """);
+
+        assertEquals(new LeitorImportacao.Leitura(2,
+                new LinhaImportacao("System of a Down", "BANDA", "Toxicity", 2001), null), leitor.ler());
+        assertEquals(new LeitorImportacao.Leitura(4,
+                new LinhaImportacao("System of a Down", null, "Mezmerize, Hypnotize", null), null), leitor.ler());
+        assertEquals(new LeitorImportacao.Leitura(5,
+                new LinhaImportacao("Serj Tankian", "SOLO", "Diga \"Olá\"\n(ao vivo)", 2010), null), leitor.ler());
+        assertNull(leitor.ler());
+    }
+
+    @Test
+    void ler_DeveReportarErroDaLinhaEContinuar() throws IOException {
+        LeitorImportacao leitor = leitor(FormatoImportacao.NDJSON, """
+                {"artista":"Michel Teló","titulo":"Bem Sertanejo","anoLancamento":2014}
+                {"artista":"Michel Teló","anoLancamento":"dois mil"}
+                {"titulo":"Sem artista"}
+                {"artista":"Guns N' Roses"
+                {"artista":"Guns N' Roses","tipo":"BANDA"}
+                """);
+
+        assertEquals(new LinhaImportacao("Michel Teló", null, "Bem Sertanejo", 2014), leitor.ler().linha());
+        assertTrue(leitor.ler().erro().startsWith("JSON inválido"));
+        assertEquals(new LeitorImportacao.Leitura(3, null, "artista é obrigatório"), leitor.ler());
+        assertEquals(4, leitor.ler().numero());
+        assertEquals(new LinhaImportacao("Guns N' Roses", "BANDA", null, null), leitor.ler().linha());
+        assertNull(leitor.ler());
+    }
+
+    @Test
+    void ler_DeveFalhar_QuandoOCabecalhoCsvNaoTiverArtista() {
+        LeitorImportacao leitor = leitor(FormatoImportacao.CSV, "nome,titulo\nSerj Tankian,Harakiri\n");
+
+        assertThrows(IllegalArgumentException.class, leitor::ler);
+    }
+
+    private LeitorImportacao leitor(FormatoImportacao formato, String conteudo) {
+        return new LeitorImportacao(new StringReader(conteudo), formato, objectMapper);
+    }
+}
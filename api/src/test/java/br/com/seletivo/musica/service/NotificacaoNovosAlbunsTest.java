@@ -0,0 +1,57 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.dto.NovoAlbumDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class NotificacaoNovosAlbunsTest {
+
+    private SimpMessagingTemplate messagingTemplate;
+    private NotificacaoNovosAlbuns notificacao;
+
+    @BeforeEach
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        notificacao = new NotificacaoNovosAlbuns(messagingTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void publicar_DeveAgruparOLoteEmUmFramePorArtistaEUmNoTopicoGeral() {
+        notificacao.publicar(List.of(
+                new NovoAlbumEvent(1L, "Toxicity", 10L, "System of a Down"),
+                new NovoAlbumEvent(2L, "Harakiri", 20L, "Serj Tankian"),
+                new NovoAlbumEvent(3L, "Mezmerize", 10L, "System of a Down"),
+                new NovoAlbumEvent(4L, "Hypnotize", 10L, "System of a Down")));
+
+        verify(messagingTemplate).convertAndSend("/topic/artistas/10/novos-albuns", List.of(
+                new NovoAlbumDto(1L, "Toxicity", 10L, "System of a Down"),
+                new NovoAlbumDto(3L, "Mezmerize", 10L, "System of a Down"),
+                new NovoAlbumDto(4L, "Hypnotize", 10L, "System of a Down")));
+        verify(messagingTemplate).convertAndSend("/topic/artistas/20/novos-albuns", List.of(
+                new NovoAlbumDto(2L, "Harakiri", 20L, "Serj Tankian")));
+        verify(messagingTemplate).convertAndSend("/topic/novos-albuns",
+                "4 novos álbuns cadastrados: Toxicity de System of a Down, Harakiri de Serj Tankian, "
+                        + "Mezmerize de System of a Down e mais 1");
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void publicar_DeveManterAMensagemOriginal_QuandoOLoteTiverUmAlbum() {
+        notificacao.publicar(List.of(new NovoAlbumEvent(1L, "Toxicity", 10L, "System of a Down")));
+
+        verify(messagingTemplate).convertAndSend("/topic/novos-albuns", "Novo álbum cadastrado: Toxicity de System of a Down");
+    }
+
+    @Test
+    void publicar_NaoDeveEnviarNada_QuandoOLoteEstiverVazio() {
+        notificacao.publicar(List.of());
+
+        verifyNoInteractions(messagingTemplate);
+    }
+}
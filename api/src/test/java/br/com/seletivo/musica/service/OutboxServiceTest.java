@@ -0,0 +1,98 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.repository.OutboxEventoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Sem a transação do teste: o relay só enxerga eventos já commitados, como em produção
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxServiceTest {
+
+    @Autowired
+    private OutboxEventoRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private DistribuicaoNovosAlbuns distribuicao;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        distribuicao = mock(DistribuicaoNovosAlbuns.class);
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new OutboxService(outboxRepository, distribuicao, new OutboxProperties(), new ObjectMapper(),
+                transactionManager, mock(ApplicationEventPublisher.class), mock(ScheduledExecutorService.class),
+                meterRegistry, Clock.systemUTC());
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void drenar_DeveEntregarOsEventosEmUmLoteERemoverDoOutbox() {
+        NovoAlbumEvent primeiro = new NovoAlbumEvent(1L, "Toxicity", 10L, "System of a Down");
+        NovoAlbumEvent segundo = new NovoAlbumEvent(2L, "Harakiri", 20L, "Serj Tankian");
+        registrarEmTransacao(OutboxService.ALBUM_CRIADO, primeiro);
+        registrarEmTransacao(OutboxService.ALBUM_CRIADO, segundo);
+        // Sem destino: descartado junto com o lote em vez de travar a fila
+        registrarEmTransacao("DESCONHECIDO", "x");
+
+        outboxService.drenar();
+
+        verify(distribuicao).distribuir(List.of(primeiro, segundo));
+        assertEquals(0, outboxRepository.count());
+        assertEquals(3, meterRegistry.counter("outbox.publicados").count());
+        assertEquals(0.0, meterRegistry.get("outbox.atraso").gauge().value());
+    }
+
+    @Test
+    void drenar_DeveManterOLoteNoOutbox_QuandoAEntregaFalhar() {
+        NovoAlbumEvent evento = new NovoAlbumEvent(1L, "Toxicity", 10L, "System of a Down");
+        registrarEmTransacao(OutboxService.ALBUM_CRIADO, evento);
+        doThrow(new MessageDeliveryException("broker indisponível")).when(distribuicao).distribuir(any());
+
+        outboxService.drenar();
+
+        assertEquals(1, outboxRepository.count());
+        assertEquals(1, meterRegistry.counter("outbox.falhas").count());
+
+        // Na próxima tentativa o mesmo evento é entregue (pelo menos uma vez)
+        doNothing().when(distribuicao).distribuir(any());
+        outboxService.drenar();
+
+        verify(distribuicao, times(2)).distribuir(List.of(evento));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private void registrarEmTransacao(String tipo, Object payload) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> outboxService.registrar(tipo, payload));
+    }
+}
@@ -0,0 +1,101 @@
+package br.com.seletivo.musica.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Roda contra um Postgres real, por exemplo o do docker-compose:
+ * mvn test -Dtest=PostgresDistribuicaoNovosAlbunsTest -Dpostgres.url=jdbc:postgresql://localhost:5432/seletivo
+ * (usuário e senha padrão do docker-compose; sobrescreva com -Dpostgres.user e -Dpostgres.password)
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+class PostgresDistribuicaoNovosAlbunsTest {
+
+    private static DriverManagerDataSource dataSource;
+    private static TransactionTemplate transactionTemplate;
+    private final List<PostgresDistribuicaoNovosAlbuns> replicas = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new DriverManagerDataSource(
+                System.getProperty("postgres.url"),
+                System.getProperty("postgres.user", "user"),
+                System.getProperty("postgres.password", "password"));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicas.forEach(PostgresDistribuicaoNovosAlbuns::shutdown);
+    }
+
+    @Test
+    void distribuir_DeveEntregarOLoteNasDuasReplicas_SoDepoisDoCommit() throws Exception {
+        NotificacaoNovosAlbuns brokerA = mock(NotificacaoNovosAlbuns.class);
+        NotificacaoNovosAlbuns brokerB = mock(NotificacaoNovosAlbuns.class);
+        PostgresDistribuicaoNovosAlbuns replicaA = replica(brokerA);
+        replica(brokerB);
+        // Tempo para as duas conexões entrarem em LISTEN
+        Thread.sleep(500);
+        List<NovoAlbumEvent> lote = List.of(new NovoAlbumEvent(1L, "Álbum", 2L, "Banda"));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            replicaA.distribuir(lote);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> replicaA.distribuir(lote));
+
+        verify(brokerA, timeout(5_000)).publicar(lote);
+        verify(brokerB, timeout(5_000)).publicar(lote);
+        // O lote desfeito não chega a ninguém
+        Thread.sleep(200);
+        verify(brokerA, times(1)).publicar(any());
+        verify(brokerB, times(1)).publicar(any());
+    }
+
+    @Test
+    void dividir_DeveRespeitarOLimiteDoNotify_SemPerderEventos() throws Exception {
+        PostgresDistribuicaoNovosAlbuns replica = new PostgresDistribuicaoNovosAlbuns(new JdbcTemplate(dataSource),
+                dataSource, mock(NotificacaoNovosAlbuns.class), new ObjectMapper(),
+                Executors.newSingleThreadExecutor(), new SimpleMeterRegistry());
+        List<NovoAlbumEvent> lote = new ArrayList<>();
+        for (long i = 0; i < 500; i++) {
+            lote.add(new NovoAlbumEvent(i, "Título com acentuação " + i, i, "Artista " + i));
+        }
+
+        List<String> payloads = replica.dividir(lote);
+
+        assertTrue(payloads.size() > 1);
+        int eventos = 0;
+        for (String payload : payloads) {
+            assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= PostgresDistribuicaoNovosAlbuns.MAXIMO_BYTES);
+            eventos += new ObjectMapper().readValue(payload, NovoAlbumEvent[].class).length;
+        }
+        assertEquals(500, eventos);
+    }
+
+    private PostgresDistribuicaoNovosAlbuns replica(NotificacaoNovosAlbuns broker) {
+        PostgresDistribuicaoNovosAlbuns replica = new PostgresDistribuicaoNovosAlbuns(new JdbcTemplate(dataSource),
+                dataSource, broker, new ObjectMapper(), Executors.newSingleThreadExecutor(), new SimpleMeterRegistry());
+        replica.iniciar();
+        replicas.add(replica);
+        return replica;
+    }
+}
@@ -0,0 +1,66 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.domain.Regional;
+import br.com.seletivo.musica.repository.RegionalRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegionaisSnapshotTest {
+
+    private RegionalRepository regionalRepository;
+    private RegionaisSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        regionalRepository = mock(RegionalRepository.class);
+        snapshot = new RegionaisSnapshot(regionalRepository, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void obter_DeveServirDoSnapshot_SemConsultarOBancoDeNovo() {
+        when(regionalRepository.findByAtivoTrueOrderByIdAsc()).thenReturn(List.of(regional(1L, "Norte")));
+
+        RegionaisSnapshot.Snapshot primeiro = snapshot.obter();
+        RegionaisSnapshot.Snapshot segundo = snapshot.obter();
+
+        assertSame(primeiro, segundo);
+        assertTrue(new String(primeiro.json()).contains("\"nome\":\"Norte\""));
+        assertTrue(primeiro.etag().startsWith("\"") && primeiro.etag().endsWith("\""));
+        verify(regionalRepository, times(1)).findByAtivoTrueOrderByIdAsc();
+    }
+
+    @Test
+    void aoAlterarRegionais_DeveTrocarOSnapshot_SoQuandoOConteudoMudar() {
+        when(regionalRepository.findByAtivoTrueOrderByIdAsc())
+                .thenReturn(List.of(regional(1L, "Norte")))
+                .thenReturn(List.of(regional(1L, "Norte")))
+                .thenReturn(List.of(regional(1L, "Norte"), regional(2L, "Sul")));
+
+        RegionaisSnapshot.Snapshot inicial = snapshot.obter();
+        snapshot.recarregarPeriodicamente();
+        assertSame(inicial, snapshot.obter());
+
+        snapshot.aoAlterarRegionais(new RegionaisAlteradasEvent());
+        RegionaisSnapshot.Snapshot alterado = snapshot.obter();
+        assertNotEquals(inicial.etag(), alterado.etag());
+        assertTrue(new String(alterado.json()).contains("\"nome\":\"Sul\""));
+    }
+
+    private static Regional regional(Long id, String nome) {
+        Regional regional = new Regional();
+        regional.setId(id);
+        regional.setCodigoExterno(id.intValue());
+        regional.setNome(nome);
+        regional.setAtivo(true);
+        regional.setDataCriacao(Instant.parse("2025-01-01T00:00:00Z"));
+        return regional;
+    }
+}
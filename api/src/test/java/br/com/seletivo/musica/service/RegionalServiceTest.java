@@ -1,17 +1,30 @@
 package br.com.seletivo.musica.service;
 
 import br.com.seletivo.musica.domain.Regional;
+import br.com.seletivo.musica.domain.RegionalSincronizacao;
 import br.com.seletivo.musica.repository.RegionalRepository;
+import br.com.seletivo.musica.repository.RegionalSincronizacaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,12 +33,21 @@ class RegionalServiceTest {
     @Mock
     private RegionalRepository regionalRepository;
 
+    @Mock
+    private RegionalSincronizacaoRepository sincronizacaoRepository;
+
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
     private RegionalService regionalService;
 
+    @BeforeEach
+    void setUp() {
+        regionalService = new RegionalService(regionalRepository, sincronizacaoRepository,
+                new RegionalProperties(), restTemplate, new ObjectMapper(), mock(ApplicationEventPublisher.class),
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
     @Test
     void findAllAtivos_DeveRetornarLista_QuandoExistiremRegionais() {
         // Arrange
@@ -43,4 +65,29 @@ class RegionalServiceTest {
         assertEquals("Regional 1", result.get(0).getNome());
         verify(regionalRepository, times(1)).findByAtivoTrue();
     }
+
+    @Test
+    void sincronizar_NaoDeveChamarApi_QuandoOutraReplicaEstiverSincronizando() {
+        when(sincronizacaoRepository.tentarBloquear(RegionalService.CHAVE_BLOQUEIO)).thenReturn(false);
+
+        assertTrue(regionalService.sincronizar().isEmpty());
+
+        verifyNoInteractions(restTemplate, regionalRepository);
+    }
+
+    @Test
+    void sincronizar_NaoDeveAplicar_QuandoOutraReplicaVerificarDuranteAChamada() {
+        RegionalSincronizacao antes = new RegionalSincronizacao();
+        RegionalSincronizacao depois = new RegionalSincronizacao();
+        depois.setDataVerificacao(Instant.now());
+        when(sincronizacaoRepository.tentarBloquear(RegionalService.CHAVE_BLOQUEIO)).thenReturn(true);
+        when(sincronizacaoRepository.findById(any())).thenReturn(Optional.of(antes), Optional.of(depois));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(), eq(byte[].class)))
+                .thenReturn(ResponseEntity.ok("[{\"id\":1,\"nome\":\"Regional 1\"}]".getBytes()));
+
+        assertTrue(regionalService.sincronizar().isEmpty());
+
+        verifyNoInteractions(regionalRepository);
+        verify(sincronizacaoRepository, never()).save(any());
+    }
 }
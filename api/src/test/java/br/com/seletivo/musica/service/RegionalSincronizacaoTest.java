@@ -0,0 +1,177 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.domain.Regional;
+import br.com.seletivo.musica.dto.SincronizacaoRegionalDto;
+import br.com.seletivo.musica.repository.RegionalRepository;
+import br.com.seletivo.musica.repository.RegionalSincronizacaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RegionalSincronizacaoTest {
+
+    private static final int TOTAL_LOCAIS = 200;
+    private static final String URL = "http://regionais.local/v1/regionais";
+
+    @Autowired
+    private RegionalRepository regionalRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RegionalSincronizacaoRepository sincronizacaoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private RegionalService regionalService;
+    private MockRestServiceServer api;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        api = MockRestServiceServer.bindTo(restTemplate).build();
+        RegionalProperties properties = new RegionalProperties();
+        properties.setUrl(URL);
+        regionalService = new RegionalService(regionalRepository, sincronizacaoRepository, properties,
+                restTemplate, new ObjectMapper(), mock(ApplicationEventPublisher.class), transactionManager, new SimpleMeterRegistry());
+
+        List<Regional> locais = new ArrayList<>();
+        for (int i = 1; i <= TOTAL_LOCAIS; i++) {
+            Regional regional = new Regional();
+            regional.setCodigoExterno(i);
+            regional.setNome("Regional " + i);
+            regional.setAtivo(true);
+            regional.setDataCriacao(Instant.now());
+            locais.add(regional);
+        }
+        regionalRepository.saveAll(locais);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void aplicar_DeveCriarRenomearEInativar() {
+        // 1..150 continuam (1..20 renomeadas), 151..200 somem da API e 201..300 são novas
+        List<RegionalService.RegionalDto> remotos = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            if (i > 150 && i <= TOTAL_LOCAIS) {
+                continue;
+            }
+            remotos.add(dto(i, i <= 20 ? "Regional " + i + " (nova)" : "Regional " + i));
+        }
+
+        long comandos = contarComandos(() -> regionalService.aplicar(remotos.toArray(new RegionalService.RegionalDto[0])));
+
+        Map<Integer, String> ativas = regionalRepository.findByAtivoTrue().stream()
+                .collect(Collectors.toMap(Regional::getCodigoExterno, Regional::getNome));
+        assertEquals(250, ativas.size());
+        assertEquals("Regional 1 (nova)", ativas.get(1));
+        assertEquals("Regional 21", ativas.get(21));
+        assertFalse(ativas.containsKey(151));
+        assertEquals(TOTAL_LOCAIS + 120, regionalRepository.count());
+        assertTrue(regionalRepository.findAll().stream()
+                .filter(r -> !r.isAtivo())
+                .allMatch(r -> r.getDataInativacao() != null));
+
+        // 70 inativações e 120 inserts: consulta + UPDATE + poucos lotes de insert e de ids, nunca um comando por linha
+        assertTrue(comandos < 15, "comandos executados: " + comandos);
+    }
+
+    @Test
+    void sincronizar_DeveEnviarValidadores_ENaoCompararQuandoApiResponder304() {
+        api.expect(requestTo(URL))
+                .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+                .andRespond(withSuccess(json(1, "Regional 1 (nova)"), MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.ETAG, "\"v1\"")
+                        .header(HttpHeaders.LAST_MODIFIED, "Wed, 01 Jan 2025 00:00:00 GMT"));
+        api.expect(requestTo(URL))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andExpect(header(HttpHeaders.IF_MODIFIED_SINCE, "Wed, 01 Jan 2025 00:00:00 GMT"))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        SincronizacaoRegionalDto primeira = regionalService.sincronizar().orElseThrow();
+        entityManager.flush();
+        entityManager.clear();
+        long comandos = contarComandos(() -> assertFalse(regionalService.sincronizar().orElseThrow().alterada()));
+        entityManager.flush();
+
+        api.verify();
+        assertTrue(primeira.alterada());
+        assertEquals(1, primeira.criadas());
+        assertEquals(TOTAL_LOCAIS, primeira.inativadas());
+        // Só os bloqueios (antes e depois da chamada à API) e o estado da sincronização; a tabela regional não é consultada
+        assertEquals(3, comandos);
+        assertEquals(0, sincronizacaoRepository.findById(URL).orElseThrow().getLinhasAlteradas());
+        assertEquals(1, regionalRepository.findByAtivoTrue().size());
+    }
+
+    @Test
+    void sincronizar_NaoDeveCompararQuandoConteudoForIgual_MesmoSemValidadores() {
+        String corpo = json(1, "Regional 1");
+        api.expect(times(2), requestTo(URL)).andRespond(withSuccess(corpo, MediaType.APPLICATION_JSON));
+
+        SincronizacaoRegionalDto primeira = regionalService.sincronizar().orElseThrow();
+        SincronizacaoRegionalDto segunda = regionalService.sincronizar().orElseThrow();
+
+        api.verify();
+        assertTrue(primeira.alterada());
+        assertEquals(TOTAL_LOCAIS - 1, primeira.inativadas());
+        assertFalse(segunda.alterada());
+        assertEquals(0, segunda.criadas() + segunda.inativadas());
+    }
+
+    private long contarComandos(Runnable acao) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        acao.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static String json(int id, String nome) {
+        return "[{\"id\":" + id + ",\"nome\":\"" + nome + "\"}]";
+    }
+
+    private static RegionalService.RegionalDto dto(int id, String nome) {
+        RegionalService.RegionalDto dto = new RegionalService.RegionalDto();
+        dto.setId(id);
+        dto.setNome(nome);
+        return dto;
+    }
+}
@@ -0,0 +1,129 @@
+package br.com.seletivo.musica.service;
+
+import br.com.seletivo.musica.domain.RegionalSincronizacaoExecucao;
+import br.com.seletivo.musica.dto.SincronizacaoRegionalDto;
+import br.com.seletivo.musica.dto.SincronizacaoRegionalExecucaoDto;
+import br.com.seletivo.musica.repository.RegionalSincronizacaoExecucaoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SincronizacaoRegionalAgendadorTest {
+
+    private RegionalService regionalService;
+    private RegionalSincronizacaoExecucaoRepository execucaoRepository;
+    private final Map<UUID, RegionalSincronizacaoExecucao> execucoes = new HashMap<>();
+    // Tarefas enviadas ao executor, rodadas manualmente pelos testes
+    private final List<Runnable> tarefas = new ArrayList<>();
+    private SincronizacaoRegionalAgendador agendador;
+
+    @BeforeEach
+    void setUp() {
+        regionalService = mock(RegionalService.class);
+        execucaoRepository = mock(RegionalSincronizacaoExecucaoRepository.class);
+        when(execucaoRepository.save(any())).thenAnswer(invocation -> {
+            RegionalSincronizacaoExecucao execucao = invocation.getArgument(0);
+            execucoes.put(execucao.getId(), execucao);
+            return execucao;
+        });
+        when(execucaoRepository.findById(any())).thenAnswer(invocation ->
+                Optional.ofNullable(execucoes.get(invocation.<UUID>getArgument(0))));
+
+        ExecutorService executor = mock(ExecutorService.class);
+        doAnswer(invocation -> tarefas.add(invocation.getArgument(0))).when(executor).execute(any());
+
+        agendador = new SincronizacaoRegionalAgendador(regionalService, execucaoRepository,
+                new RegionalProperties(), executor, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void disparar_DeveReaproveitarExecucaoEmAndamento() {
+        when(regionalService.sincronizar()).thenReturn(Optional.of(new SincronizacaoRegionalDto(true, 3, 1, 10)));
+
+        SincronizacaoRegionalExecucaoDto primeira = agendador.disparar("MANUAL");
+        SincronizacaoRegionalExecucaoDto segunda = agendador.disparar("AGENDADA");
+
+        assertEquals(primeira.id(), segunda.id());
+        assertEquals(1, tarefas.size());
+
+        tarefas.get(0).run();
+
+        SincronizacaoRegionalExecucaoDto concluida = agendador.buscar(primeira.id());
+        assertEquals("CONCLUIDA", concluida.status());
+        assertEquals(3, concluida.resultado().criadas());
+        assertNotNull(concluida.dataFim());
+
+        // Terminada a execução, um novo pedido inicia outra
+        assertNotEquals(primeira.id(), agendador.disparar("MANUAL").id());
+        verify(regionalService, times(1)).sincronizar();
+    }
+
+    @Test
+    void disparar_DeveRetornarExecucaoDeOutraReplica_SemIniciarOutra() {
+        RegionalSincronizacaoExecucao outra = new RegionalSincronizacaoExecucao();
+        outra.setId(UUID.randomUUID());
+        outra.setStatus(RegionalSincronizacaoExecucao.Status.EXECUTANDO);
+        outra.setGatilho("AGENDADA");
+        outra.setDataSolicitacao(Instant.now());
+        when(execucaoRepository.findFirstByStatusInAndDataSolicitacaoAfterOrderByDataSolicitacaoDesc(any(), any()))
+                .thenReturn(Optional.of(outra));
+
+        SincronizacaoRegionalExecucaoDto execucao = agendador.disparar("MANUAL");
+
+        assertEquals(outra.getId(), execucao.id());
+        assertEquals("EXECUTANDO", execucao.status());
+        assertTrue(tarefas.isEmpty());
+    }
+
+    @Test
+    void executar_DeveMarcarIgnorada_QuandoOutraReplicaTiverOBloqueio() {
+        when(regionalService.sincronizar()).thenReturn(Optional.empty());
+
+        UUID id = agendador.disparar("MANUAL").id();
+        tarefas.get(0).run();
+
+        SincronizacaoRegionalExecucaoDto execucao = agendador.buscar(id);
+        assertEquals("IGNORADA", execucao.status());
+        assertNull(execucao.resultado());
+    }
+
+    @Test
+    void executar_NaoDeveGuardarExecucaoAgendadaIgnorada() {
+        when(regionalService.sincronizar()).thenReturn(Optional.empty());
+
+        agendador.sincronizarPeriodicamente();
+        tarefas.get(0).run();
+
+        ArgumentCaptor<RegionalSincronizacaoExecucao> removida = ArgumentCaptor.forClass(RegionalSincronizacaoExecucao.class);
+        verify(execucaoRepository).delete(removida.capture());
+        assertEquals(RegionalSincronizacaoExecucao.Status.IGNORADA, removida.getValue().getStatus());
+    }
+
+    @Test
+    void executar_DeveMarcarFalha_QuandoApiExternaFalhar() {
+        when(regionalService.sincronizar()).thenThrow(new RuntimeException("conexão recusada"));
+
+        UUID id = agendador.disparar("MANUAL").id();
+        tarefas.get(0).run();
+
+        SincronizacaoRegionalExecucaoDto execucao = agendador.buscar(id);
+        assertEquals("FALHOU", execucao.status());
+        assertEquals("conexão recusada", execucao.erro());
+        // A falha libera a réplica para uma nova execução
+        assertNotEquals(id, agendador.disparar("MANUAL").id());
+    }
+}
@@ -0,0 +1,162 @@
+package br.com.seletivo.musica.storage;
+
+import br.com.seletivo.musica.domain.AlbumCapa;
+import br.com.seletivo.musica.repository.AlbumCapaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MiniaturaServiceTest {
+
+    private MinioService minioService;
+    private AlbumCapaRepository albumCapaRepository;
+    private MiniaturaService service;
+
+    @BeforeEach
+    void setUp() {
+        minioService = mock(MinioService.class);
+        albumCapaRepository = mock(AlbumCapaRepository.class);
+        service = new MiniaturaService(new MiniaturaProperties(), albumCapaRepository, minioService,
+                mock(ExecutorService.class), mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void gerarMiniaturas_DeveGravarUmaVarianteProporcionalPorLargura() throws Exception {
+        when(minioService.abrirObjeto("album/1/capa")).thenReturn(png(2000, 1000));
+
+        assertEquals(MiniaturaService.Resultado.CONCLUIDA, service.gerarMiniaturas(capa()));
+
+        ArgumentCaptor<byte[]> conteudo = ArgumentCaptor.forClass(byte[].class);
+        for (int largura : List.of(64, 256, 1024)) {
+            verify(minioService).gravarObjeto(eq("album/1/capa-" + largura + ".jpg"), conteudo.capture(), eq("image/jpeg"));
+            BufferedImage miniatura = ImageIO.read(new ByteArrayInputStream(conteudo.getValue()));
+            assertEquals(largura, miniatura.getWidth());
+            assertEquals(largura / 2, miniatura.getHeight());
+        }
+        verify(albumCapaRepository).registrarMiniaturas(1L, "64,256,1024");
+        verify(albumCapaRepository).incrementarVersaoDoAlbum(1L);
+    }
+
+    @Test
+    void gerarMiniaturas_NaoDeveAmpliarImagensPequenas() throws Exception {
+        when(minioService.abrirObjeto("album/1/capa")).thenReturn(png(300, 300));
+
+        assertEquals(MiniaturaService.Resultado.CONCLUIDA, service.gerarMiniaturas(capa()));
+
+        verify(minioService, times(2)).gravarObjeto(anyString(), any(byte[].class), eq("image/jpeg"));
+        verify(albumCapaRepository).registrarMiniaturas(1L, "64,256");
+    }
+
+    @Test
+    void gerarMiniaturas_DeveMarcarComoProcessada_QuandoArquivoNaoForImagem() throws Exception {
+        when(minioService.abrirObjeto("album/1/capa")).thenReturn(new ByteArrayInputStream("não é imagem".getBytes()));
+
+        assertEquals(MiniaturaService.Resultado.CONCLUIDA, service.gerarMiniaturas(capa()));
+
+        verify(minioService, never()).gravarObjeto(anyString(), any(byte[].class), anyString());
+        verify(albumCapaRepository).registrarMiniaturas(1L, "");
+        verify(albumCapaRepository, never()).incrementarVersaoDoAlbum(anyLong());
+    }
+
+    @Test
+    void gerarMiniaturas_DeveManterPendenteSemContarTentativa_QuandoMinioEstiverForaDoAr() throws Exception {
+        when(minioService.abrirObjeto("album/1/capa")).thenThrow(new ConnectException("conexão recusada"));
+
+        assertEquals(MiniaturaService.Resultado.INDISPONIVEL, service.gerarMiniaturas(capa()));
+
+        verify(albumCapaRepository, never()).registrarMiniaturas(anyLong(), anyString());
+        verify(albumCapaRepository, never()).registrarFalhaMiniaturas(anyLong());
+    }
+
+    @Test
+    void gerarMiniaturas_DeveContarTentativa_QuandoFalhaNaoForDeRede() throws Exception {
+        when(minioService.abrirObjeto("album/1/capa")).thenThrow(new IOException("objeto não encontrado"));
+
+        assertEquals(MiniaturaService.Resultado.FALHOU, service.gerarMiniaturas(capa()));
+
+        verify(albumCapaRepository, never()).registrarMiniaturas(anyLong(), anyString());
+        verify(albumCapaRepository).registrarFalhaMiniaturas(1L);
+    }
+
+    @Test
+    void processarPendentes_DeveSeguirParaOProximoLote_QuandoTodasAsCapasDoLoteFalharem() throws Exception {
+        MiniaturaProperties properties = new MiniaturaProperties();
+        properties.setBackfillBatchSize(2);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            service = new MiniaturaService(properties, albumCapaRepository, minioService, executor,
+                    mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+            when(minioService.abrirObjeto(anyString())).thenThrow(new IOException("objeto não encontrado"));
+            when(albumCapaRepository.travarSemMiniaturas(any(), eq(0L), eq(3), any(), eq(2)))
+                    .thenReturn(List.of(capa(1L), capa(2L)));
+            when(albumCapaRepository.travarSemMiniaturas(any(), eq(2L), eq(3), any(), eq(2)))
+                    .thenReturn(List.of());
+
+            service.processarPendentes();
+
+            verify(albumCapaRepository).reservarMiniaturas(eq(List.of(1L, 2L)), any());
+            verify(albumCapaRepository).registrarFalhaMiniaturas(1L);
+            verify(albumCapaRepository).registrarFalhaMiniaturas(2L);
+            verify(albumCapaRepository).travarSemMiniaturas(any(), eq(2L), eq(3), any(), eq(2));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void processarPendentes_DeveParar_QuandoMinioEstiverForaDoAr() throws Exception {
+        MiniaturaProperties properties = new MiniaturaProperties();
+        properties.setBackfillBatchSize(2);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            service = new MiniaturaService(properties, albumCapaRepository, minioService, executor,
+                    mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+            when(minioService.abrirObjeto(anyString())).thenThrow(new ConnectException("conexão recusada"));
+            when(albumCapaRepository.travarSemMiniaturas(any(), eq(0L), eq(3), any(), eq(2)))
+                    .thenReturn(List.of(capa(1L), capa(2L)));
+
+            service.processarPendentes();
+
+            verify(albumCapaRepository, times(1)).travarSemMiniaturas(any(), anyLong(), anyInt(), any(), anyInt());
+            verify(albumCapaRepository, never()).registrarFalhaMiniaturas(anyLong());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static AlbumCapa capa() {
+        return capa(1L);
+    }
+
+    private static AlbumCapa capa(Long id) {
+        AlbumCapa capa = new AlbumCapa();
+        capa.setId(id);
+        capa.setObjetoMinio("album/" + id + "/capa");
+        capa.setContentType("image/png");
+        capa.setTamanhoBytes(10L);
+        return capa;
+    }
+
+    private static ByteArrayInputStream png(int largura, int altura) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(largura, altura, BufferedImage.TYPE_INT_ARGB), "png", saida);
+        return new ByteArrayInputStream(saida.toByteArray());
+    }
+}
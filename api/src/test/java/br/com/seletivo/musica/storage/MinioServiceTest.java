@@ -0,0 +1,348 @@
+package br.com.seletivo.musica.storage;
+
+import br.com.seletivo.musica.domain.Album;
+import br.com.seletivo.musica.domain.AlbumCapa;
+import br.com.seletivo.musica.domain.CapaObjeto;
+import br.com.seletivo.musica.repository.AlbumCapaRepository;
+import br.com.seletivo.musica.repository.AlbumCapaRepository.MiniaturasDoConteudo;
+import br.com.seletivo.musica.repository.CapaObjetoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Time;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class MinioServiceTest {
+
+    private MinioProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private MinioClient minioClient;
+    private AlbumCapaRepository albumCapaRepository;
+    private CapaObjetoRepository capaObjetoRepository;
+    private ExecutorService uploadExecutor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MinioProperties();
+        properties.setInternalHost("minio");
+        properties.setInternalPort(9000);
+        properties.setPublicHost("localhost");
+        properties.setPublicPort(9000);
+        properties.setAccessKey("minioadmin");
+        properties.setSecretKey("minioadmin");
+        properties.setBucket("albuns");
+        meterRegistry = new SimpleMeterRegistry();
+        minioClient = mock(MinioClient.class);
+        albumCapaRepository = mock(AlbumCapaRepository.class);
+        capaObjetoRepository = mock(CapaObjetoRepository.class);
+        uploadExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    @Test
+    void uploadCapas_DeveEnviarTodosOsArquivos_EGravarOsRegistrosNoFinal() throws Exception {
+        when(albumCapaRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        MinioService service = novoService(Clock.systemUTC());
+
+        List<AlbumCapa> capas = service.uploadCapas(album(), arquivos(5));
+
+        assertEquals(5, capas.size());
+        assertEquals(5, capas.stream().map(AlbumCapa::getObjetoMinio).distinct().count());
+        verify(minioClient, times(5)).putObject(any(PutObjectArgs.class));
+        verify(albumCapaRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void uploadCapas_DeveReaproveitarObjetoExistente_QuandoConteudoJaFoiEnviado() throws Exception {
+        when(albumCapaRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        MultipartFile repetida = arquivo("repetida.png", 10);
+        MultipartFile nova = arquivo("nova.png", 10);
+        String hashRepetida = sha256(repetida.getBytes());
+        Thread requisicao = Thread.currentThread();
+        when(capaObjetoRepository.findAllById(any())).thenAnswer(invocation -> {
+            // As consultas rodam na thread da requisição, não nas threads de envio
+            assertSame(requisicao, Thread.currentThread());
+            return List.of(capaObjeto(hashRepetida));
+        });
+        when(albumCapaRepository.buscarMiniaturasPorHash(List.of(hashRepetida)))
+                .thenReturn(List.of(miniaturas(hashRepetida, "64,256")));
+        MinioService service = novoService(Clock.systemUTC());
+
+        List<AlbumCapa> capas = service.uploadCapas(album(), List.of(repetida, nova));
+
+        assertEquals("capas/" + hashRepetida, capas.get(0).getObjetoMinio());
+        assertEquals(hashRepetida, capas.get(0).getHashSha256());
+        assertEquals("64,256", capas.get(0).getMiniaturas());
+        verify(minioClient, times(1)).putObject(argThat(args -> args != null && args.object().equals(capas.get(1).getObjetoMinio())));
+        verify(minioClient, times(1)).putObject(any(PutObjectArgs.class));
+        verify(capaObjetoRepository).adicionarReferencias(hashRepetida, "capas/" + hashRepetida, 10L, 1);
+        verify(capaObjetoRepository).adicionarReferencias(eq(capas.get(1).getHashSha256()), anyString(), eq(10L), eq(1));
+        verify(capaObjetoRepository, times(1)).findAllById(any());
+        // Os conteúdos são travados antes da consulta, para ver o que um upload concorrente acabou de gravar
+        InOrder ordem = inOrder(capaObjetoRepository);
+        ordem.verify(capaObjetoRepository, times(2)).travarConteudo(eq(MinioService.CLASSE_BLOQUEIO_CONTEUDO), anyString());
+        ordem.verify(capaObjetoRepository).findAllById(any());
+    }
+
+    @Test
+    void uploadCapas_DeveEnviarUmaVezSo_ArquivosRepetidosNoMesmoUpload() throws Exception {
+        when(albumCapaRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        MinioService service = novoService(Clock.systemUTC());
+
+        List<AlbumCapa> capas = service.uploadCapas(album(), List.of(arquivo("a.png", 10), arquivo("a.png", 10)));
+
+        assertEquals(capas.get(0).getObjetoMinio(), capas.get(1).getObjetoMinio());
+        verify(minioClient, times(1)).putObject(any(PutObjectArgs.class));
+        verify(capaObjetoRepository).adicionarReferencias(capas.get(0).getHashSha256(), capas.get(0).getObjetoMinio(), 10L, 2);
+    }
+
+    @Test
+    void uploadCapas_DeveRemoverSoObjetosSemReferencias_DepoisDoRollback() throws Exception {
+        List<MultipartFile> arquivos = List.of(arquivo("a.png", 10), arquivo("b.png", 10));
+        String hashA = sha256(arquivos.get(0).getBytes());
+        String hashB = sha256(arquivos.get(1).getBytes());
+        when(albumCapaRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("falhou"));
+        // Outro upload com o mesmo conteúdo de "a.png" registrou o objeto enquanto este falhava
+        when(capaObjetoRepository.buscarReferenciados(anyList())).thenReturn(List.of(hashA));
+        MinioService service = novoService(Clock.systemUTC());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(DataIntegrityViolationException.class, () -> service.uploadCapas(album(), arquivos));
+            // Com a transação abortada nada é consultado nem removido; a compensação espera o rollback
+            verify(capaObjetoRepository, never()).buscarReferenciados(anyList());
+            verify(minioClient, never()).removeObjects(any());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sincronizacao -> sincronizacao.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Consulta e remove com os conteúdos travados, como faria um upload concorrente antes de enviar
+        InOrder ordem = inOrder(capaObjetoRepository, minioClient);
+        ordem.verify(capaObjetoRepository).travarConteudo(MinioService.CLASSE_BLOQUEIO_CONTEUDO, hashA);
+        ordem.verify(capaObjetoRepository).buscarReferenciados(List.of(hashA, hashB));
+        ArgumentCaptor<RemoveObjectsArgs> remocao = ArgumentCaptor.forClass(RemoveObjectsArgs.class);
+        ordem.verify(minioClient).removeObjects(remocao.capture());
+        verify(capaObjetoRepository, times(2)).travarConteudo(MinioService.CLASSE_BLOQUEIO_CONTEUDO, hashB);
+        // Só o objeto de "b.png"; o de "a.png" ganhou uma referência
+        assertEquals(1, countObjetos(remocao.getValue()));
+    }
+
+    @Test
+    void uploadCapas_NaoDeveRemoverNada_QuandoATransacaoForConfirmada() throws Exception {
+        when(albumCapaRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        MinioService service = novoService(Clock.systemUTC());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.uploadCapas(album(), arquivos(2));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sincronizacao -> sincronizacao.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(capaObjetoRepository, never()).buscarReferenciados(anyList());
+        verify(minioClient, never()).removeObjects(any());
+    }
+
+    @Test
+    void uploadCapas_DeveRemoverObjetosEnviados_QuandoAlgumEnvioFalhar() throws Exception {
+        // O arquivo de 3 bytes falha; os demais são enviados normalmente
+        when(minioClient.putObject(argThat(args -> args != null && args.objectSize() == 3)))
+                .thenThrow(new IOException("conexão recusada"));
+        MinioService service = novoService(Clock.systemUTC());
+        List<MultipartFile> arquivos = List.of(
+                arquivo("a.png", 10), arquivo("b.png", 10), arquivo("falha.png", 3));
+
+        RuntimeException erro = assertThrows(RuntimeException.class, () -> service.uploadCapas(album(), arquivos));
+
+        assertEquals("Erro ao enviar arquivo para o MinIO", erro.getMessage());
+        verify(albumCapaRepository, never()).saveAll(anyList());
+        ArgumentCaptor<RemoveObjectsArgs> remocao = ArgumentCaptor.forClass(RemoveObjectsArgs.class);
+        verify(minioClient).removeObjects(remocao.capture());
+        int enviados = mockingDetails(minioClient).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("putObject"))
+                .mapToInt(invocation -> ((PutObjectArgs) invocation.getArgument(0)).objectSize() == 3 ? 0 : 1)
+                .sum();
+        assertEquals(enviados, countObjetos(remocao.getValue()));
+    }
+
+    @Test
+    void gerarUrlAssinada_DeveRetornarMesmaUrl_DentroDaMesmaJanela() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-05-10T12:01:00Z"));
+        MinioService service = novoService(clock);
+
+        String primeira = service.gerarUrlAssinada("album/1/capa");
+        clock.avancar(Duration.ofMinutes(25));
+        String segunda = service.gerarUrlAssinada("album/1/capa");
+
+        assertEquals(primeira, segunda);
+        assertEquals("20240510T120000Z", HttpUrl.get(primeira).queryParameter("X-Amz-Date"));
+        assertEquals("3600", HttpUrl.get(primeira).queryParameter("X-Amz-Expires"));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void gerarUrlAssinada_DeveRenovarUrl_NaViradaDaJanela() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-05-10T12:29:00Z"));
+        MinioService service = novoService(clock);
+
+        String primeira = service.gerarUrlAssinada("album/1/capa");
+        clock.avancar(Duration.ofMinutes(2));
+        String segunda = service.gerarUrlAssinada("album/1/capa");
+
+        assertNotEquals(primeira, segunda);
+        assertEquals("20240510T123000Z", HttpUrl.get(segunda).queryParameter("X-Amz-Date"));
+    }
+
+    @Test
+    void assinar_DeveGerarMesmaAssinaturaQueOClienteMinio() throws Exception {
+        MinioClient client = MinioClient.builder()
+                .endpoint(properties.getPublicUrl())
+                .credentials(properties.getAccessKey(), properties.getSecretKey())
+                .region(properties.getRegion())
+                .build();
+        String esperada = client.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                .bucket(properties.getBucket())
+                .object("album/1/capa de teste.png")
+                .method(Method.GET)
+                .expiry(3600)
+                .build());
+        Instant data = ZonedDateTime.parse(HttpUrl.get(esperada).queryParameter("X-Amz-Date"), Time.AMZ_DATE_FORMAT)
+                .toInstant();
+
+        String gerada = novoService(Clock.systemUTC()).assinar("album/1/capa de teste.png", data);
+
+        assertEquals(esperada, gerada);
+    }
+
+    private MinioService novoService(Clock clock) {
+        return new MinioService(properties, albumCapaRepository, capaObjetoRepository, minioClient, uploadExecutor,
+                mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class), meterRegistry, clock);
+    }
+
+    private static Album album() {
+        Album album = new Album();
+        album.setId(1L);
+        return album;
+    }
+
+    private static CapaObjeto capaObjeto(String hash) {
+        CapaObjeto objeto = new CapaObjeto();
+        objeto.setHashSha256(hash);
+        objeto.setObjetoMinio("capas/" + hash);
+        objeto.setTamanhoBytes(10L);
+        objeto.setReferencias(1);
+        return objeto;
+    }
+
+    private static MiniaturasDoConteudo miniaturas(String hash, String miniaturas) {
+        return new MiniaturasDoConteudo() {
+            @Override
+            public String getHashSha256() {
+                return hash;
+            }
+
+            @Override
+            public String getMiniaturas() {
+                return miniaturas;
+            }
+        };
+    }
+
+    private static List<MultipartFile> arquivos(int quantidade) {
+        return java.util.stream.IntStream.range(0, quantidade)
+                .mapToObj(i -> arquivo("capa-" + i + ".png", 10))
+                .collect(java.util.stream.Collectors.toList());
+    }
+
+    // O conteúdo depende do nome, para que arquivos diferentes tenham hashes diferentes
+    private static MultipartFile arquivo(String nome, int tamanho) {
+        byte[] conteudo = new byte[tamanho];
+        Arrays.fill(conteudo, (byte) nome.hashCode());
+        return new MockMultipartFile("files", nome, "image/png", conteudo);
+    }
+
+    private static String sha256(byte[] conteudo) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+    }
+
+    private static int countObjetos(RemoveObjectsArgs args) {
+        int total = 0;
+        for (Object ignored : args.objects()) {
+            total++;
+        }
+        return total;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant agora;
+
+        MutableClock(Instant agora) {
+            this.agora = agora;
+        }
+
+        void avancar(Duration duracao) {
+            agora = agora.plus(duracao);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return agora;
+        }
+    }
+}
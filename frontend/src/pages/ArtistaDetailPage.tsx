@@ -5,6 +5,8 @@ import api from '../services/api';
 interface AlbumCapa {
   id: number;
   url: string;
+  // URLs das versões reduzidas por largura (px); vazio enquanto não foram geradas
+  miniaturas: Record<string, string>;
 }
 
 interface Album {
@@ -18,13 +20,25 @@ interface ArtistaDetalhe {
   id: number;
   nome: string;
   tipo: string;
+  quantidadeAlbuns: number;
+  // Só a primeira página; as seguintes vêm de /albuns?artistaId=&after=
   albuns: Album[];
+  albunsNextCursor: string | null;
 }
 
+interface CursorPage<T> {
+  content: T[];
+  size: number;
+  nextCursor: string | null;
+}
+
+const ALBUNS_POR_PAGINA = 20;
+
 export default function ArtistaDetailPage() {
   const { id } = useParams();
   const [artista, setArtista] = useState<ArtistaDetalhe | null>(null);
   const [loading, setLoading] = useState(true);
+  const [carregandoMais, setCarregandoMais] = useState(false);
 
   useEffect(() => {
     const loadData = async () => {
@@ -40,6 +54,25 @@ export default function ArtistaDetailPage() {
     loadData();
   }, [id]);
 
+  const carregarMaisAlbuns = async () => {
+    if (!artista?.albunsNextCursor) return;
+    setCarregandoMais(true);
+    try {
+      const response = await api.get<CursorPage<Album>>('/albuns', {
+        params: { artistaId: artista.id, after: artista.albunsNextCursor, size: ALBUNS_POR_PAGINA }
+      });
+      setArtista({
+        ...artista,
+        albuns: [...artista.albuns, ...response.data.content],
+        albunsNextCursor: response.data.nextCursor
+      });
+    } catch (error) {
+      console.error(error);
+    } finally {
+      setCarregandoMais(false);
+    }
+  };
+
   if (loading) return (
     <div className="flex justify-center items-center min-h-[50vh]">
       <div className="w-16 h-16 border-4 border-neon-purple border-t-transparent rounded-full animate-spin"></div>
@@ -91,7 +124,7 @@ export default function ArtistaDetailPage() {
         <h2 className="text-2xl font-bold text-white mb-8 flex items-center gap-3">
           <span className="w-1 h-8 bg-neon-blue rounded-full"></span>
           Discografia
-          <span className="text-gray-600 text-sm font-normal ml-2">({artista.albuns.length} lançamentos)</span>
+          <span className="text-gray-600 text-sm font-normal ml-2">({artista.quantidadeAlbuns} lançamentos)</span>
         </h2>
         
         {artista.albuns.length === 0 ? (
@@ -110,7 +143,9 @@ export default function ArtistaDetailPage() {
                   
                   {album.capas.length > 0 ? (
                     <img 
-                      src={album.capas[0].url} 
+                      src={album.capas[0].miniaturas?.['256'] ?? album.capas[0].url}
+                      srcSet={album.capas[0].miniaturas?.['1024'] ? `${album.capas[0].miniaturas['256']} 256w, ${album.capas[0].miniaturas['1024']} 1024w` : undefined}
+                      sizes="(min-width: 1280px) 25vw, (min-width: 1024px) 33vw, (min-width: 640px) 50vw, 100vw"
                       alt={`Capa de ${album.titulo}`}
                       className="w-full h-full object-cover opacity-90 group-hover:opacity-100 transition-opacity animate-[spin_10s_linear_infinite] [animation-play-state:paused] group-hover:[animation-play-state:running]"
                     />
@@ -138,6 +173,18 @@ export default function ArtistaDetailPage() {
             ))}
           </div>
         )}
+
+        {artista.albunsNextCursor && (
+          <div className="mt-12 text-center">
+            <button
+              onClick={carregarMaisAlbuns}
+              disabled={carregandoMais}
+              className="px-6 py-3 bg-neon-blue/10 border border-neon-blue/50 text-neon-blue rounded-lg font-bold uppercase tracking-wider hover:bg-neon-blue hover:text-white transition-all disabled:opacity-50"
+            >
+              {carregandoMais ? 'Carregando...' : 'Carregar mais álbuns'}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );